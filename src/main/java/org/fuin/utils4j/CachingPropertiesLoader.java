@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.WeakHashMap;
+
+import static org.fuin.utils4j.Utils4J.checkNotNull;
+import static org.fuin.utils4j.Utils4J.getPackagePath;
+
+/**
+ * Loads properties from the classpath like {@link PropertiesUtils#loadProperties(ClassLoader, String)} but parses every resource only once.
+ * The cache holds the class loaders only weakly, so it does not prevent unloading them. As the same result is returned to every caller, it
+ * cannot be modified. If the reload option is set, a resource that is a file in the file system is parsed again after its modification
+ * time changed. Resources in JAR files are never reloaded. This class is thread-safe.
+ */
+public final class CachingPropertiesLoader {
+
+    private final boolean reloadIfModified;
+
+    private final Map<ClassLoader, Map<String, Entry>> cache;
+
+    /**
+     * Default constructor. Cached resources are never reloaded.
+     */
+    public CachingPropertiesLoader() {
+        this(false);
+    }
+
+    /**
+     * Constructor with reload option.
+     *
+     * @param reloadIfModified
+     *            If <code>true</code> the modification time of resources in the file system is checked on every call and a modified
+     *            resource is loaded again, else the first result is always returned.
+     */
+    public CachingPropertiesLoader(final boolean reloadIfModified) {
+        super();
+        this.reloadIfModified = reloadIfModified;
+        this.cache = new WeakHashMap<>();
+    }
+
+    /**
+     * Returns if modified resources are reloaded.
+     *
+     * @return If the modification time is checked <code>true</code> else <code>false</code>.
+     */
+    public final boolean isReloadIfModified() {
+        return reloadIfModified;
+    }
+
+    /**
+     * Load properties from classpath.
+     *
+     * @param clasz
+     *            Class in the same package as the properties file - Cannot be <code>null</code>.
+     * @param filename
+     *            Name of the properties file (without path) - Cannot be <code>null</code>.
+     *
+     * @return Unmodifiable properties.
+     */
+    public final Map<String, String> load(final Class<?> clasz, final String filename) {
+        checkNotNull("clasz", clasz);
+        checkNotNull("filename", filename);
+        return load(clasz.getClassLoader(), getPackagePath(clasz) + "/" + filename);
+    }
+
+    /**
+     * Loads a resource from the classpath as properties.
+     *
+     * @param loader
+     *            Class loader to use - Cannot be <code>null</code>.
+     * @param resource
+     *            Resource to load - Cannot be <code>null</code>.
+     *
+     * @return Unmodifiable properties.
+     */
+    public final Map<String, String> load(final ClassLoader loader, final String resource) {
+        checkNotNull("loader", loader);
+        checkNotNull("resource", resource);
+
+        final Entry cached;
+        synchronized (cache) {
+            cached = cache.computeIfAbsent(loader, l -> new HashMap<>()).get(resource);
+        }
+        if ((cached != null) && !cached.isModified()) {
+            return cached.props;
+        }
+
+        // Parsing is done without holding the lock - Concurrent callers may parse the same resource in rare cases
+        final URL url = cached == null ? loader.getResource(resource) : cached.url;
+        if (url == null) {
+            throw new IllegalArgumentException("Resource '" + resource + "' not found!");
+        }
+        final Entry entry = new Entry(url, reloadIfModified ? toFile(url) : null);
+        synchronized (cache) {
+            cache.computeIfAbsent(loader, l -> new HashMap<>()).put(resource, entry);
+        }
+        return entry.props;
+    }
+
+    /**
+     * Removes all cached properties.
+     */
+    public final void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private static File toFile(final URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (final URISyntaxException | IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Parsed resource.
+     */
+    private static final class Entry {
+
+        private final URL url;
+
+        /** File to check for modifications or <code>null</code> if it's never reloaded. */
+        private final File file;
+
+        private final long lastModified;
+
+        private final Map<String, String> props;
+
+        Entry(final URL url, final File file) {
+            this.url = url;
+            this.file = file;
+            // Read the time first, so a modification during parsing leads to a reload on next access
+            this.lastModified = file == null ? 0 : file.lastModified();
+            final Properties properties = PropertiesUtils.loadProperties(url);
+            final Map<String, String> map = new HashMap<>();
+            for (final String key : properties.stringPropertyNames()) {
+                map.put(key, properties.getProperty(key));
+            }
+            this.props = Map.copyOf(map);
+        }
+
+        boolean isModified() {
+            return (file != null) && (file.lastModified() != lastModified);
+        }
+
+    }
+
+}
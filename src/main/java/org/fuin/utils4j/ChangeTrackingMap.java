@@ -188,13 +188,10 @@ public class ChangeTrackingMap<K, V> implements Map<K, V>, Taggable {
 
     @Override
     public final void clear() {
-        final Iterator<K> it = map.keySet().iterator();
-        while (it.hasNext()) {
-            final K key = it.next();
-            final V value = map.get(key);
-            removeIntern(key, value);
-        }
         if (tagged) {
+            for (final Entry<K, V> entry : map.entrySet()) {
+                removeIntern(entry.getKey(), entry.getValue());
+            }
             added.clear();
         }
         map.clear();
@@ -237,14 +234,28 @@ public class ChangeTrackingMap<K, V> implements Map<K, V>, Taggable {
         return oldValue;
     }
 
+    /**
+     * Copies all of the mappings from the specified map to this map. If the map is not tagged or it's empty and nothing was removed since
+     * tagging, the mappings are copied with a single bulk operation that sizes the maps only once. Otherwise the changes are recorded while
+     * iterating over the entries once.
+     * 
+     * @param newMap
+     *            Mappings to be stored in this map.
+     */
     @Override
     public final void putAll(final Map<? extends K, ? extends V> newMap) {
-        final Iterator<? extends K> it = newMap.keySet().iterator();
-        while (it.hasNext()) {
-            final K key = it.next();
-            final V newValue = newMap.get(key);
-            final V oldValue = map.put(key, newValue);
-            changeIntern(key, oldValue, newValue);
+        if (!tagged) {
+            map.putAll(newMap);
+        } else if (map.isEmpty() && removed.isEmpty()) {
+            // Nothing can be changed or restored, so every entry is new
+            map.putAll(newMap);
+            added.putAll(newMap);
+        } else {
+            for (final Entry<? extends K, ? extends V> entry : newMap.entrySet()) {
+                final K key = entry.getKey();
+                final V newValue = entry.getValue();
+                changeIntern(key, map.put(key, newValue), newValue);
+            }
         }
     }
 
@@ -22,7 +22,9 @@ import java.util.*;
 /**
  * A wrapper for lists that keeps track of all changes made to the list since construction. Only adding, replacing or deleting elements is
  * tracked (not changes inside the objects). Duplicates elements are not allowed for the list - This is like a {@link java.util.Set} but at
- * the same time ordered like a {@link List} . It's also possible to revert all changes.
+ * the same time ordered like a {@link List} . It's also possible to revert all changes. The elements of the list and the added and deleted
+ * elements are indexed with hash sets, so checking for duplicates and tracking a change takes constant time. The elements must therefore
+ * implement <code>hashCode()</code> consistent with <code>equals(Object)</code>.
  * 
  * @param <T>
  *            Type of objects contained in the list.
@@ -31,9 +33,12 @@ public class ChangeTrackingUniqueList<T> implements List<T>, Taggable {
 
     private final List<T> list;
 
-    private final List<T> added;
+    /** Same elements as the list for fast membership checks. */
+    private final Set<T> members;
 
-    private final List<T> deleted;
+    private final Set<T> added;
+
+    private final Set<T> deleted;
 
     private boolean tagged;
 
@@ -43,14 +48,15 @@ public class ChangeTrackingUniqueList<T> implements List<T>, Taggable {
      * 
      * @param list
      *            Wrapped list - Be aware that this list will be changed by this class. There is no internal copy of the list - The
-     *            reference itself is used.
+     *            reference itself is used. The list should not be changed directly after constructing this instance.
      */
     public ChangeTrackingUniqueList(final List<T> list) {
         super();
         Utils4J.checkNotNull("list", list);
         this.list = list;
-        this.added = new ArrayList<>();
-        this.deleted = new ArrayList<>();
+        this.members = new HashSet<>(list);
+        this.added = new LinkedHashSet<>();
+        this.deleted = new LinkedHashSet<>();
         tagged = true;
     }
 
@@ -68,20 +74,20 @@ public class ChangeTrackingUniqueList<T> implements List<T>, Taggable {
      * Returns deleted elements. If the list is not in tag mode (this means {@link #isTagged()} returns <code>true</code>) this method will
      * always return an empty list.
      * 
-     * @return Elements that have been deleted since construction of this instance - Unmodifiable list!
+     * @return Copy of the elements that have been deleted since construction of this instance in the order of deletion - Unmodifiable list!
      */
     public final List<T> getDeleted() {
-        return Collections.unmodifiableList(deleted);
+        return Collections.unmodifiableList(new ArrayList<>(deleted));
     }
 
     /**
      * Returns added elements. If the list is not in tag mode (this means {@link #isTagged()} returns <code>true</code>) this method will
      * always return an empty list.
      * 
-     * @return Elements that have been added since construction of this instance - Unmodifiable list!
+     * @return Copy of the elements that have been added since construction of this instance in the order of adding - Unmodifiable list!
      */
     public final List<T> getAdded() {
-        return Collections.unmodifiableList(added);
+        return Collections.unmodifiableList(new ArrayList<>(added));
     }
 
     /**
@@ -93,42 +99,38 @@ public class ChangeTrackingUniqueList<T> implements List<T>, Taggable {
 
         if (tagged) {
 
-            // Remove the added entries
-            final Iterator<T> addedIt = added.iterator();
-            while (addedIt.hasNext()) {
-                final Object entry = addedIt.next();
-                list.remove(entry);
-                addedIt.remove();
+            // Remove the added entries - Checks membership with the hash set in a single pass
+            if (!added.isEmpty()) {
+                list.removeAll(added);
+                members.removeAll(added);
+                added.clear();
             }
 
             // Add the removed entries
-            final Iterator<T> removedIt = deleted.iterator();
-            while (removedIt.hasNext()) {
-                final T entry = removedIt.next();
-                list.add(entry);
-                removedIt.remove();
-            }
+            list.addAll(deleted);
+            members.addAll(deleted);
+            deleted.clear();
 
         }
 
     }
 
     private void addIntern(final T o) {
-        if (tagged) {
-            final int idx = deleted.indexOf(o);
-            if (idx == -1) {
-                added.add(o);
-            } else {
-                deleted.remove(idx);
-            }
+        members.add(o);
+        if (tagged && !deleted.remove(o)) {
+            added.add(o);
         }
     }
 
-    @Override
-    public final boolean add(final T o) {
-        if (list.contains(o)) {
+    private void checkNotContained(final T o) {
+        if (members.contains(o)) {
             throw new IllegalArgumentException("The argument is already in the list: " + o);
         }
+    }
+
+    @Override
+    public final boolean add(final T o) {
+        checkNotContained(o);
         final boolean b = list.add(o);
         if (b) {
             addIntern(o);
@@ -138,58 +140,107 @@ public class ChangeTrackingUniqueList<T> implements List<T>, Taggable {
 
     @Override
     public final void add(final int index, final T o) {
-        if (list.contains(o)) {
-            throw new IllegalArgumentException("The argument is already in the list: " + o);
-        }
+        checkNotContained(o);
         list.add(index, o);
         addIntern(o);
     }
 
-    @Override
-    public final boolean addAll(final Collection<? extends T> c) {
-        int count = 0;
-        final Iterator<? extends T> it = c.iterator();
-        while (it.hasNext()) {
-            if (add(it.next())) {
-                count++;
+    /**
+     * Checks that none of the elements is already in the list or contained twice in the collection. Nothing is changed if the check fails.
+     * 
+     * @param c
+     *            Elements to add.
+     * 
+     * @return Set with the elements.
+     */
+    private Set<T> checkNoneContained(final Collection<? extends T> c) {
+        final Set<T> set = new HashSet<>(Math.max(16, (int) (c.size() / 0.75f) + 1));
+        for (final T o : c) {
+            checkNotContained(o);
+            if (!set.add(o)) {
+                throw new IllegalArgumentException("The argument is contained more than once in the collection: " + o);
+            }
+        }
+        return set;
+    }
+
+    private void ensureCapacity(final int additional) {
+        if (list instanceof ArrayList) {
+            ((ArrayList<T>) list).ensureCapacity(list.size() + additional);
+        }
+    }
+
+    private void addAllIntern(final Collection<? extends T> c, final Set<T> set) {
+        members.addAll(set);
+        if (tagged) {
+            for (final T o : c) {
+                if (!deleted.remove(o)) {
+                    added.add(o);
+                }
             }
         }
-        return (count > 0);
     }
 
+    /**
+     * Adds all elements. The uniqueness of all elements is checked before the list is changed, so either all or none of the elements are
+     * added.
+     * 
+     * @param c
+     *            Elements to add.
+     * 
+     * @return If the list changed <code>true</code> else <code>false</code>.
+     */
+    @Override
+    public final boolean addAll(final Collection<? extends T> c) {
+        final Set<T> set = checkNoneContained(c);
+        ensureCapacity(c.size());
+        final boolean b = list.addAll(c);
+        addAllIntern(c, set);
+        return b;
+    }
+
+    /**
+     * Inserts all elements at the given position. The uniqueness of all elements is checked before the list is changed, so either all or
+     * none of the elements are added.
+     * 
+     * @param index
+     *            Position to insert the first element.
+     * @param c
+     *            Elements to add.
+     * 
+     * @return If the list changed <code>true</code> else <code>false</code>.
+     */
     @Override
     public final boolean addAll(final int index, final Collection<? extends T> c) {
-        int count = 0;
-        final Iterator<? extends T> it = c.iterator();
-        while (it.hasNext()) {
-            add(index + count, it.next());
-            count++;
-        }
-        return (count > 0);
+        final Set<T> set = checkNoneContained(c);
+        ensureCapacity(c.size());
+        final boolean b = list.addAll(index, c);
+        addAllIntern(c, set);
+        return b;
     }
 
     @Override
     public final void clear() {
-        for (int i = 0; i < list.size(); i++) {
-            final T o = list.get(i);
-            if (tagged && !added.contains(o)) {
-                deleted.add(o);
-            }
-        }
         if (tagged) {
+            for (final T o : list) {
+                if (!added.contains(o)) {
+                    deleted.add(o);
+                }
+            }
             added.clear();
         }
         list.clear();
+        members.clear();
     }
 
     @Override
     public final boolean contains(final Object o) {
-        return list.contains(o);
+        return members.contains(o);
     }
 
     @Override
     public final boolean containsAll(final Collection<?> c) {
-        return list.containsAll(c);
+        return members.containsAll(c);
     }
 
     @Override
@@ -199,6 +250,9 @@ public class ChangeTrackingUniqueList<T> implements List<T>, Taggable {
 
     @Override
     public final int indexOf(final Object o) {
+        if (!members.contains(o)) {
+            return -1;
+        }
         return list.indexOf(o);
     }
 
@@ -209,38 +263,40 @@ public class ChangeTrackingUniqueList<T> implements List<T>, Taggable {
 
     @Override
     public final Iterator<T> iterator() {
-        return list.iterator();
+        return new TrackingListIterator(list.listIterator());
     }
 
     @Override
     public final int lastIndexOf(final Object o) {
+        if (!members.contains(o)) {
+            return -1;
+        }
         return list.lastIndexOf(o);
     }
 
     @Override
     public final ListIterator<T> listIterator() {
-        return list.listIterator();
+        return new TrackingListIterator(list.listIterator());
     }
 
     @Override
     public final ListIterator<T> listIterator(final int index) {
-        return list.listIterator(index);
+        return new TrackingListIterator(list.listIterator(index));
     }
 
     private void removeIntern(final T o) {
-        if (tagged) {
-            final int idx = added.indexOf(o);
-            if (idx == -1) {
-                deleted.add(o);
-            } else {
-                added.remove(idx);
-            }
+        members.remove(o);
+        if (tagged && !added.remove(o)) {
+            deleted.add(o);
         }
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public final boolean remove(final Object o) {
+        if (!members.contains(o)) {
+            return false;
+        }
         final boolean b = list.remove(o);
         if (b) {
             removeIntern((T) o);
@@ -259,35 +315,44 @@ public class ChangeTrackingUniqueList<T> implements List<T>, Taggable {
 
     @Override
     public final boolean removeAll(final Collection<?> c) {
-        boolean changed = false;
-        final Iterator<?> it = c.iterator();
-        while (it.hasNext()) {
-            final Object o = it.next();
-            if (remove(o)) {
-                changed = true;
-            }
-        }
-        return changed;
+        final Set<?> set = (c instanceof Set) ? (Set<?>) c : new HashSet<>(c);
+        return removeMatching(set, true);
     }
 
     @Override
     public final boolean retainAll(final Collection<?> c) {
-        boolean changed = false;
-        for (int i = list.size() - 1; i >= 0; i--) {
-            final Object o = list.get(i);
-            if (!c.contains(o)) {
-                remove(i);
-                changed = true;
+        final Set<?> set = (c instanceof Set) ? (Set<?>) c : new HashSet<>(c);
+        return removeMatching(set, false);
+    }
+
+    /**
+     * Removes the elements that are (or are not) contained in a set with a single pass over the list.
+     * 
+     * @param set
+     *            Elements to check.
+     * @param contained
+     *            If <code>true</code> the elements contained in the set are removed else the elements not contained.
+     * 
+     * @return If the list changed <code>true</code> else <code>false</code>.
+     */
+    private boolean removeMatching(final Set<?> set, final boolean contained) {
+        return list.removeIf(o -> {
+            if (set.contains(o) == contained) {
+                removeIntern(o);
+                return true;
             }
-        }
-        return changed;
+            return false;
+        });
     }
 
     @Override
     public final T set(final int index, final T o) {
+        if (!Objects.equals(o, list.get(index))) {
+            checkNotContained(o);
+        }
         final T removed = list.set(index, o);
-        addIntern(o);
         removeIntern(removed);
+        addIntern(o);
         return removed;
     }
 
@@ -296,9 +361,19 @@ public class ChangeTrackingUniqueList<T> implements List<T>, Taggable {
         return list.size();
     }
 
+    /**
+     * Returns a view of a part of the list. Changes are not possible with the view, because they could not be tracked.
+     * 
+     * @param fromIndex
+     *            Low endpoint (inclusive) of the sub list.
+     * @param toIndex
+     *            High endpoint (exclusive) of the sub list.
+     * 
+     * @return Unmodifiable view of the specified range.
+     */
     @Override
     public final List<T> subList(final int fromIndex, final int toIndex) {
-        return list.subList(fromIndex, toIndex);
+        return Collections.unmodifiableList(list.subList(fromIndex, toIndex));
     }
 
     @Override
@@ -347,4 +422,75 @@ public class ChangeTrackingUniqueList<T> implements List<T>, Taggable {
         }
     }
 
+    /**
+     * List iterator that keeps track of changes made with the iterator.
+     */
+    private final class TrackingListIterator implements ListIterator<T> {
+
+        private final ListIterator<T> delegate;
+
+        private T last;
+
+        TrackingListIterator(final ListIterator<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public T next() {
+            last = delegate.next();
+            return last;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return delegate.hasPrevious();
+        }
+
+        @Override
+        public T previous() {
+            last = delegate.previous();
+            return last;
+        }
+
+        @Override
+        public int nextIndex() {
+            return delegate.nextIndex();
+        }
+
+        @Override
+        public int previousIndex() {
+            return delegate.previousIndex();
+        }
+
+        @Override
+        public void remove() {
+            delegate.remove();
+            removeIntern(last);
+        }
+
+        @Override
+        public void set(final T o) {
+            if (!Objects.equals(o, last)) {
+                checkNotContained(o);
+            }
+            delegate.set(o);
+            removeIntern(last);
+            addIntern(o);
+            last = o;
+        }
+
+        @Override
+        public void add(final T o) {
+            checkNotContained(o);
+            delegate.add(o);
+            addIntern(o);
+        }
+
+    }
+
 }
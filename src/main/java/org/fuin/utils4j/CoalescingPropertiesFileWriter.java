@@ -0,0 +1,247 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Lets several threads change a {@link PropertiesFile} and saves the changes of all threads that arrive within a short time window with a
+ * single locked merge, write and sync ("group commit"). Each change returns a future that completes when the change is saved or completes
+ * exceptionally if the save failed. If the changes conflict with changes of another process ({@link MergeException}), the changes in memory
+ * are discarded and replaced with the content of the file. After any other failure the changes stay in memory and are saved again with
+ * the next change. Changes are applied to an in-memory copy of the file that answers {@link #get(String)}, so changing and reading never
+ * waits for a save in progress. The properties file must only be accessed using this class after construction. This class is thread-safe.
+ */
+public final class CoalescingPropertiesFileWriter implements AutoCloseable {
+
+    /** Guards the properties file - Saves are executed one after the other. */
+    private final Object saveLock = new Object();
+
+    private final PropertiesFile file;
+
+    private final Executor delayedExecutor;
+
+    /** Copy of the file with all changes including the unsaved ones. */
+    private PropertiesFile view;
+
+    private List<Change> pending;
+
+    private boolean closed;
+
+    /**
+     * Constructor with file and time window. Saves are executed by the default asynchronous executor of this library.
+     *
+     * @param file
+     *            Properties file to change - Cannot be <code>null</code>.
+     * @param windowMillis
+     *            Milliseconds to wait after the first unsaved change for more changes before saving.
+     */
+    public CoalescingPropertiesFileWriter(final PropertiesFile file, final long windowMillis) {
+        this(file, windowMillis, Utils4J.getDefaultAsyncExecutor());
+    }
+
+    /**
+     * Constructor with all data.
+     *
+     * @param file
+     *            Properties file to change - Cannot be <code>null</code>.
+     * @param windowMillis
+     *            Milliseconds to wait after the first unsaved change for more changes before saving.
+     * @param executor
+     *            Executor used to save the file - Cannot be <code>null</code>.
+     */
+    public CoalescingPropertiesFileWriter(final PropertiesFile file, final long windowMillis, final Executor executor) {
+        super();
+        Utils4J.checkNotNull("file", file);
+        Utils4J.checkNotNull("executor", executor);
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("The argument 'windowMillis' cannot be negative: " + windowMillis);
+        }
+        this.file = file;
+        this.delayedExecutor = CompletableFuture.delayedExecutor(windowMillis, TimeUnit.MILLISECONDS, executor);
+        this.view = copyOf(file);
+        this.pending = new ArrayList<>();
+    }
+
+    /**
+     * Returns a value for a given key including changes that are not saved yet.
+     *
+     * @param key
+     *            Key to find.
+     *
+     * @return Value or <code>null</code> if the key is unknown.
+     */
+    public final synchronized String get(final String key) {
+        return view.get(key);
+    }
+
+    /**
+     * Sets a value for a property in memory and saves it together with other changes.
+     *
+     * @param key
+     *            Key to set.
+     * @param value
+     *            Value to set.
+     *
+     * @return Future that completes when the change is saved.
+     */
+    public final CompletableFuture<Void> put(final String key, final String value) {
+        return update(f -> f.put(key, value));
+    }
+
+    /**
+     * Removes a property in memory and saves it together with other changes.
+     *
+     * @param key
+     *            Key for the property to remove.
+     *
+     * @return Future that completes when the change is saved.
+     */
+    public final CompletableFuture<Void> remove(final String key) {
+        return update(f -> f.remove(key));
+    }
+
+    /**
+     * Executes a change of the properties file in memory and saves it together with other changes. The change is executed on the in-memory
+     * copy and again on the file when saving, so it must only depend on the given properties file and must not save it.
+     *
+     * @param change
+     *            Change to execute - Cannot be <code>null</code>.
+     *
+     * @return Future that completes when the change is saved.
+     */
+    public final synchronized CompletableFuture<Void> update(final Consumer<PropertiesFile> change) {
+        Utils4J.checkNotNull("change", change);
+        if (closed) {
+            throw new IllegalStateException("The writer is already closed: " + file.getFile());
+        }
+        change.accept(view);
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        pending.add(new Change(change, future));
+        if (pending.size() == 1) {
+            delayedExecutor.execute(this::flush);
+        }
+        return future;
+    }
+
+    /**
+     * Saves all pending changes immediately in the caller's thread. Does nothing if there are no pending changes. Changes made while
+     * saving are not included and wait for the next save.
+     */
+    public final void flush() {
+        synchronized (saveLock) {
+            final List<Change> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+            try {
+                for (final Change change : batch) {
+                    change.change.accept(file);
+                }
+                file.save(false);
+                for (final Change change : batch) {
+                    change.future.complete(null);
+                }
+            } catch (final MergeException ex) {
+                discardChanges(ex);
+                fail(batch, ex);
+            } catch (final IOException | LockingFailedException | RuntimeException ex) {
+                fail(batch, ex);
+            }
+            // The save may have merged changes of other processes
+            final PropertiesFile copy = copyOf(file);
+            synchronized (this) {
+                for (final Change change : pending) {
+                    change.change.accept(copy);
+                }
+                view = copy;
+            }
+        }
+    }
+
+    private static void fail(final List<Change> batch, final Exception ex) {
+        for (final Change change : batch) {
+            change.future.completeExceptionally(ex);
+        }
+    }
+
+    /**
+     * Replaces the conflicting changes in memory with the content of the file. Otherwise every following save would fail with the same
+     * conflict.
+     *
+     * @param ex
+     *            Conflict that caused the save to fail - Errors while reloading the file are added as suppressed exceptions.
+     */
+    private void discardChanges(final MergeException ex) {
+        file.clear();
+        try {
+            file.load();
+        } catch (final IOException | LockingFailedException | MergeException | RuntimeException loadEx) {
+            // The next save merges the whole file again
+            ex.addSuppressed(loadEx);
+        }
+    }
+
+    /**
+     * Saves all pending changes and rejects further changes.
+     */
+    @Override
+    public final void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+    }
+
+    private static PropertiesFile copyOf(final PropertiesFile file) {
+        final PropertiesFile copy = new PropertiesFile(file.getFile(), file.getEncoding());
+        final Properties props = file.toProperties();
+        for (final String key : props.stringPropertyNames()) {
+            copy.put(key, props.getProperty(key));
+        }
+        return copy;
+    }
+
+    /**
+     * Change that waits to be saved.
+     */
+    private static final class Change {
+
+        private final Consumer<PropertiesFile> change;
+
+        private final CompletableFuture<Void> future;
+
+        Change(final Consumer<PropertiesFile> change, final CompletableFuture<Void> future) {
+            this.change = change;
+            this.future = future;
+        }
+
+    }
+
+}
@@ -0,0 +1,475 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+/**
+ * A thread-safe variant of {@link ChangeTrackingMap} based on a {@link ConcurrentHashMap}. Instead of maintaining the added, changed and
+ * removed entries on every change, only the value a key had when the map was tagged is recorded on the first change of the key. This is
+ * done inside the <code>compute</code> call that changes the key, so there is no lock shared by all keys. The changes are calculated by
+ * comparing the recorded values with the current ones. {@link #tag()} and {@link #untag()} swap the map of recorded values: A write that
+ * still uses the old map after the swap has no effect on the tracking. {@link #drain()} and {@link #revert()} handle one key after the
+ * other inside a <code>compute</code> call of that key - A write that records a key after it has been passed is returned by the next
+ * drain. The changes returned by {@link #snapshot()} and the other read-only methods are only weakly consistent while other threads
+ * change the map. Like all concurrent maps, <code>null</code> keys and values are not allowed. The views returned by {@link #keySet()},
+ * {@link #values()} and {@link #entrySet()} are unmodifiable, because changes made with them could not be tracked.
+ *
+ * @param <K>
+ *            the type of keys maintained by this map
+ * @param <V>
+ *            the type of mapped values
+ */
+public final class ConcurrentChangeTrackingMap<K, V> implements ConcurrentMap<K, V>, Taggable {
+
+    /** Recorded for keys that did not exist when the map was tagged. */
+    private static final Object ABSENT = new Object();
+
+    private final ConcurrentHashMap<K, V> map;
+
+    /** Value of each changed key at tag time or {@link #ABSENT} - Contains <code>null</code> if the map is not tagged. */
+    private final AtomicReference<ConcurrentHashMap<K, Object>> originals;
+
+    /**
+     * Default constructor with a new empty map. The map is tagged at construction time.
+     */
+    public ConcurrentChangeTrackingMap() {
+        this(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Constructor with covered map. The map is tagged at construction time - This means {@link #isTagged()} will return <code>true</code>
+     * without calling {@link #tag()} first. If this behavior is not wanted you can call {@link #untag()} after constructing the map.
+     *
+     * @param map
+     *            Wrapped map - Be aware that this map will be changed by this class. There is no internal copy of the map - The reference
+     *            itself is used. The map should not be changed directly after constructing this instance.
+     */
+    public ConcurrentChangeTrackingMap(final ConcurrentHashMap<K, V> map) {
+        super();
+        Utils4J.checkNotNull("map", map);
+        this.map = map;
+        this.originals = new AtomicReference<>(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Records the value of a key before its first change since tagging. Must be called inside the function that changes the key in the map.
+     *
+     * @param key
+     *            Key that is changed.
+     * @param oldValue
+     *            Current value or <code>null</code> if the key does not exist.
+     */
+    private void record(final K key, final V oldValue) {
+        final ConcurrentHashMap<K, Object> recorded = originals.get();
+        if (recorded != null) {
+            recorded.putIfAbsent(key, oldValue == null ? ABSENT : oldValue);
+        }
+    }
+
+    /**
+     * Returns if the map has changed. If the map is not in tag mode (this means {@link #isTagged()} returns <code>true</code>) this method
+     * will always return <code>false</code>.
+     *
+     * @return If elements have been added, changed or removed <code>true</code> else <code>false</code>.
+     */
+    public final boolean isChanged() {
+        final ConcurrentHashMap<K, Object> recorded = originals.get();
+        if (recorded == null) {
+            return false;
+        }
+        for (final Map.Entry<K, Object> entry : recorded.entrySet()) {
+            final V current = map.get(entry.getKey());
+            if (entry.getValue() == ABSENT ? current != null : !entry.getValue().equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns added elements.
+     *
+     * @return Copy of the elements that have been added since tagging with their current value - Unmodifiable map!
+     */
+    public final Map<K, V> getAdded() {
+        return snapshot().getAdded();
+    }
+
+    /**
+     * Returns changed elements.
+     *
+     * @return Copy of the elements that have been changed since tagging with their value at tag time - Unmodifiable map!
+     */
+    public final Map<K, V> getChanged() {
+        return snapshot().getChanged();
+    }
+
+    /**
+     * Returns removed elements.
+     *
+     * @return Copy of the elements that have been removed since tagging with their value at tag time - Unmodifiable map!
+     */
+    public final Map<K, V> getRemoved() {
+        return snapshot().getRemoved();
+    }
+
+    /**
+     * Returns all changes made since tagging. Changes made by other threads while this method runs may or may not be included.
+     *
+     * @return Changes.
+     */
+    public final Changes<K, V> snapshot() {
+        final Map<K, V> added = new HashMap<>();
+        final Map<K, V> changed = new HashMap<>();
+        final Map<K, V> removed = new HashMap<>();
+        final ConcurrentHashMap<K, Object> recorded = originals.get();
+        if (recorded != null) {
+            for (final Map.Entry<K, Object> entry : recorded.entrySet()) {
+                addChange(entry.getKey(), entry.getValue(), map.get(entry.getKey()), added, changed, removed);
+            }
+        }
+        return new Changes<>(added, changed, removed);
+    }
+
+    /**
+     * Returns all changes made since tagging and starts tracking again from the current state. Each key is taken atomically with its
+     * current value. No change is lost or returned twice if this is called while other threads change the map: A change that was not
+     * returned is returned by the next call.
+     *
+     * @return Changes.
+     */
+    public final Changes<K, V> drain() {
+        final Map<K, V> added = new HashMap<>();
+        final Map<K, V> changed = new HashMap<>();
+        final Map<K, V> removed = new HashMap<>();
+        final ConcurrentHashMap<K, Object> recorded = originals.get();
+        if (recorded != null) {
+            for (final K key : recorded.keySet()) {
+                map.compute(key, (k, v) -> {
+                    final Object original = recorded.remove(k);
+                    if (original != null) {
+                        addChange(k, original, v, added, changed, removed);
+                    }
+                    return v;
+                });
+            }
+        }
+        return new Changes<>(added, changed, removed);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> void addChange(final K key, final Object original, final V current, final Map<K, V> added,
+            final Map<K, V> changed, final Map<K, V> removed) {
+        if (original == ABSENT) {
+            if (current != null) {
+                added.put(key, current);
+            }
+        } else if (current == null) {
+            removed.put(key, (V) original);
+        } else if (!original.equals(current)) {
+            changed.put(key, (V) original);
+        }
+    }
+
+    /**
+     * Roll back all changes made since tagging. This is the same function as {@link #revertToTag()}. If the map is not in tag mode (this
+     * means {@link #isTagged()} returns <code>true</code>) this method will do nothing.
+     */
+    @SuppressWarnings("unchecked")
+    public final void revert() {
+        final ConcurrentHashMap<K, Object> recorded = originals.get();
+        if (recorded == null) {
+            return;
+        }
+        for (final K key : recorded.keySet()) {
+            map.compute(key, (k, v) -> {
+                final Object original = recorded.remove(k);
+                if (original == null) {
+                    return v;
+                }
+                return original == ABSENT ? null : (V) original;
+            });
+        }
+    }
+
+    @Override
+    public final V put(final K key, final V value) {
+        Utils4J.checkNotNull("value", value);
+        final Holder<V> old = new Holder<>();
+        map.compute(key, (k, v) -> {
+            record(k, v);
+            old.value = v;
+            return value;
+        });
+        return old.value;
+    }
+
+    @Override
+    public final V putIfAbsent(final K key, final V value) {
+        Utils4J.checkNotNull("value", value);
+        final Holder<V> old = new Holder<>();
+        map.compute(key, (k, v) -> {
+            if (v != null) {
+                old.value = v;
+                return v;
+            }
+            record(k, null);
+            return value;
+        });
+        return old.value;
+    }
+
+    @Override
+    public final V remove(final Object key) {
+        final Holder<V> old = new Holder<>();
+        castAndComputeIfPresent(key, (k, v) -> {
+            record(k, v);
+            old.value = v;
+            return null;
+        });
+        return old.value;
+    }
+
+    @Override
+    public final boolean remove(final Object key, final Object value) {
+        if (value == null) {
+        return false;
+        }
+        final Holder<Boolean> removed = new Holder<>();
+        castAndComputeIfPresent(key, (k, v) -> {
+            if (!v.equals(value)) {
+                return v;
+            }
+            record(k, v);
+            removed.value = Boolean.TRUE;
+            return null;
+        });
+        return removed.value != null;
+    }
+
+    @Override
+    public final V replace(final K key, final V value) {
+        Utils4J.checkNotNull("value", value);
+        final Holder<V> old = new Holder<>();
+        map.computeIfPresent(key, (k, v) -> {
+            record(k, v);
+            old.value = v;
+            return value;
+        });
+        return old.value;
+    }
+
+    @Override
+    public final boolean replace(final K key, final V oldValue, final V newValue) {
+        Utils4J.checkNotNull("oldValue", oldValue);
+        Utils4J.checkNotNull("newValue", newValue);
+        final Holder<Boolean> replaced = new Holder<>();
+        map.computeIfPresent(key, (k, v) -> {
+            if (!v.equals(oldValue)) {
+                return v;
+            }
+            record(k, v);
+            replaced.value = Boolean.TRUE;
+            return newValue;
+        });
+        return replaced.value != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void castAndComputeIfPresent(final Object key, final BiFunction<K, V, V> function) {
+        // Only used for lookup - A key of another type is simply not found
+        map.computeIfPresent((K) key, function);
+    }
+
+    @Override
+    public final void putAll(final Map<? extends K, ? extends V> newMap) {
+        for (final Map.Entry<? extends K, ? extends V> entry : newMap.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        for (final K key : map.keySet()) {
+            remove(key);
+        }
+    }
+
+    @Override
+    public final V get(final Object key) {
+        return map.get(key);
+    }
+
+    @Override
+    public final boolean containsKey(final Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public final boolean containsValue(final Object value) {
+        return map.containsValue(value);
+    }
+
+    @Override
+    public final int size() {
+        return map.size();
+    }
+
+    @Override
+    public final boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public final Set<K> keySet() {
+        return Collections.unmodifiableSet(map.keySet());
+    }
+
+    @Override
+    public final Collection<V> values() {
+        return Collections.unmodifiableCollection(map.values());
+    }
+
+    @Override
+    public final Set<Map.Entry<K, V>> entrySet() {
+        return Collections.unmodifiableSet(map.entrySet());
+    }
+
+    @Override
+    public final boolean equals(final Object obj) {
+        return map.equals(obj);
+    }
+
+    @Override
+    public final int hashCode() {
+        return map.hashCode();
+    }
+
+    @Override
+    public final String toString() {
+        return map.toString();
+    }
+
+    @Override
+    public final boolean hasChangedSinceTagging() {
+        return isChanged();
+    }
+
+    @Override
+    public final boolean isTagged() {
+        return originals.get() != null;
+    }
+
+    @Override
+    public final void revertToTag() {
+        revert();
+    }
+
+    @Override
+    public final void tag() {
+        originals.compareAndSet(null, new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public final void untag() {
+        originals.set(null);
+    }
+
+    /**
+     * Result of a function executed inside the map.
+     *
+     * @param <T>
+     *            Type of the result.
+     */
+    private static final class Holder<T> {
+
+        private T value;
+
+    }
+
+    /**
+     * Changes of a map since tagging. This class is immutable.
+     *
+     * @param <K>
+     *            the type of keys
+     * @param <V>
+     *            the type of values
+     */
+    public static final class Changes<K, V> {
+
+        private final Map<K, V> added;
+
+        private final Map<K, V> changed;
+
+        private final Map<K, V> removed;
+
+        private Changes(final Map<K, V> added, final Map<K, V> changed, final Map<K, V> removed) {
+            super();
+            this.added = Collections.unmodifiableMap(added);
+            this.changed = Collections.unmodifiableMap(changed);
+            this.removed = Collections.unmodifiableMap(removed);
+        }
+
+        /**
+         * Returns the added elements.
+         *
+         * @return Added keys with their current value - Unmodifiable map!
+         */
+        public final Map<K, V> getAdded() {
+            return added;
+        }
+
+        /**
+         * Returns the changed elements.
+         *
+         * @return Changed keys with their value at tag time - Unmodifiable map!
+         */
+        public final Map<K, V> getChanged() {
+            return changed;
+        }
+
+        /**
+         * Returns the removed elements.
+         *
+         * @return Removed keys with their value at tag time - Unmodifiable map!
+         */
+        public final Map<K, V> getRemoved() {
+            return removed;
+        }
+
+        /**
+         * Returns if there is any change.
+         *
+         * @return If elements have been added, changed or removed <code>true</code> else <code>false</code>.
+         */
+        public final boolean isEmpty() {
+            return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+        }
+
+    }
+
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe variant of a {@link PropertiesFile}. Each load, save or change publishes a new immutable snapshot of the properties. Readers
+ * only access the current snapshot without locking, so they never wait for a writer, even if it is loading or saving the file. Writers are
+ * serialized and copy the snapshot for each change, so several changes should be made with a single
+ * {@link #update(java.util.function.Consumer)}.
+ */
+public final class ConcurrentPropertiesFile {
+
+    private final PropertiesFile file;
+
+    private volatile Map<String, String> snapshot;
+
+    /**
+     * Constructor with file. Encoding is "UTF-8".
+     *
+     * @param file
+     *            File reference.
+     */
+    public ConcurrentPropertiesFile(final File file) {
+        this(new PropertiesFile(file));
+    }
+
+    /**
+     * Constructor with properties file. The properties file must only be accessed using this class after construction.
+     *
+     * @param file
+     *            Properties file to use - Cannot be <code>null</code>.
+     */
+    public ConcurrentPropertiesFile(final PropertiesFile file) {
+        super();
+        Utils4J.checkNotNull("file", file);
+        this.file = file;
+        this.snapshot = createSnapshot(file);
+    }
+
+    /**
+     * Returns the underlying file.
+     *
+     * @return Properties file reference.
+     */
+    public final File getFile() {
+        return file.getFile();
+    }
+
+    /**
+     * Returns a value for a given key from the current snapshot.
+     *
+     * @param key
+     *            Key to find.
+     *
+     * @return Value or <code>null</code> if the key is unknown or was removed.
+     */
+    public final String get(final String key) {
+        return snapshot.get(key);
+    }
+
+    /**
+     * Returns the current snapshot. It's never changed, but a change of this object publishes a new snapshot.
+     *
+     * @return Unmodifiable key/values without removed ones in file order.
+     */
+    public final Map<String, String> getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Loads or reloads the content of the underlying file and publishes a new snapshot. See {@link PropertiesFile#load()}.
+     *
+     * @throws IOException
+     *             Error reading the file.
+     * @throws LockingFailedException
+     *             Locking the file failed.
+     * @throws MergeException
+     *             A problem occurred when merging the properties in memory and from disk.
+     */
+    public final synchronized void load() throws IOException, LockingFailedException, MergeException {
+        try {
+            file.load();
+        } finally {
+            snapshot = createSnapshot(file);
+        }
+    }
+
+    /**
+     * Saves the content from memory to disk and publishes a new snapshot. See {@link PropertiesFile#save(boolean)}.
+     *
+     * @param sortByKey
+     *            Sort the properties by key before saving?
+     *
+     * @throws IOException
+     *             Error writing the file.
+     * @throws MergeException
+     *             One or more properties were modified concurrently.
+     * @throws LockingFailedException
+     *             Locking the file failed.
+     */
+    public final void save(final boolean sortByKey) throws IOException, MergeException, LockingFailedException {
+        save(new String[] {}, sortByKey);
+    }
+
+    /**
+     * Saves the content from memory to disk and publishes a new snapshot. See {@link PropertiesFile#save(String[], boolean)}.
+     *
+     * @param comments
+     *            Comments to prepend (Should not include the "#" comment sign - It will be prepended automatically).
+     * @param sortByKey
+     *            Sort the properties by key before saving?
+     *
+     * @throws IOException
+     *             Error writing the file.
+     * @throws MergeException
+     *             One or more properties were modified concurrently.
+     * @throws LockingFailedException
+     *             Locking the file failed.
+     */
+    public final synchronized void save(final String[] comments, final boolean sortByKey)
+            throws IOException, MergeException, LockingFailedException {
+        try {
+            file.save(comments, sortByKey);
+        } finally {
+            snapshot = createSnapshot(file);
+        }
+    }
+
+    /**
+     * Sets a value for a property and publishes a new snapshot.
+     *
+     * @param key
+     *            Key to set.
+     * @param value
+     *            Value to set.
+     */
+    public final void put(final String key, final String value) {
+        update(f -> f.put(key, value));
+    }
+
+    /**
+     * Removes a property and publishes a new snapshot.
+     *
+     * @param key
+     *            Key for the property to remove.
+     */
+    public final void remove(final String key) {
+        update(f -> f.remove(key));
+    }
+
+    /**
+     * Executes one or more changes of the properties file in memory and publishes a single new snapshot afterwards. The change must not
+     * load or save the file.
+     *
+     * @param change
+     *            Change to execute - Cannot be <code>null</code>.
+     */
+    public final synchronized void update(final Consumer<PropertiesFile> change) {
+        Utils4J.checkNotNull("change", change);
+        try {
+            change.accept(file);
+        } finally {
+            snapshot = createSnapshot(file);
+        }
+    }
+
+    private static Map<String, String> createSnapshot(final PropertiesFile file) {
+        final Map<String, String> map = new LinkedHashMap<>();
+        final Iterator<String> it = file.keyIterator();
+        while (it.hasNext()) {
+            final String key = it.next();
+            final String value = file.get(key);
+            if (value != null) {
+                map.put(key, value);
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Identifies the state of a file's content. The last modified time alone is not reliable, because some file systems only have a resolution
+ * of seconds. Therefore the size, the file key (if supported by the file system) and a CRC32 checksum of the content are also compared.
+ */
+final class FileFingerprint {
+
+    private static final int BUF_SIZE = 8192;
+
+    private final long size;
+
+    private final FileTime lastModified;
+
+    private final Object fileKey;
+
+    private final long checksum;
+
+    /**
+     * Constructor with all data.
+     *
+     * @param size
+     *            File size in bytes.
+     * @param lastModified
+     *            Last modified time.
+     * @param fileKey
+     *            Unique file key or <code>null</code> if not available.
+     * @param checksum
+     *            CRC32 checksum of the content.
+     */
+    FileFingerprint(final long size, final FileTime lastModified, final Object fileKey, final long checksum) {
+        super();
+        this.size = size;
+        this.lastModified = lastModified;
+        this.fileKey = fileKey;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Creates a fingerprint for a file. The caller should hold a lock on the file to get a consistent result.
+     *
+     * @param file
+     *            File to create a fingerprint for - Cannot be <code>null</code>.
+     * @param channel
+     *            Open channel of the file. The position of the channel is not changed - Cannot be <code>null</code>.
+     *
+     * @return New fingerprint.
+     *
+     * @throws IOException
+     *             Error reading the file.
+     */
+    static FileFingerprint of(final File file, final FileChannel channel) throws IOException {
+        final CRC32 crc = new CRC32();
+        final ByteBuffer buf = ByteBuffer.allocate(BUF_SIZE);
+        long pos = 0;
+        int len;
+        while ((len = channel.read(buf, pos)) > 0) {
+            buf.flip();
+            crc.update(buf);
+            buf.clear();
+            pos += len;
+        }
+        return withChecksum(file, pos, crc.getValue());
+    }
+
+    /**
+     * Creates a fingerprint for a file with an already known size and checksum.
+     *
+     * @param file
+     *            File to create a fingerprint for - Cannot be <code>null</code>.
+     * @param size
+     *            Size of the file in bytes.
+     * @param checksum
+     *            CRC32 checksum of the content.
+     *
+     * @return New fingerprint.
+     *
+     * @throws IOException
+     *             Error reading the file attributes.
+     */
+    static FileFingerprint withChecksum(final File file, final long size, final long checksum) throws IOException {
+        final BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        return new FileFingerprint(size, attrs.lastModifiedTime(), attrs.fileKey(), checksum);
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(size, lastModified, fileKey, checksum);
+    }
+
+    @Override
+    public final boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof FileFingerprint)) {
+            return false;
+        }
+        final FileFingerprint other = (FileFingerprint) obj;
+        return (size == other.size) && (checksum == other.checksum) && Objects.equals(lastModified, other.lastModified)
+                && Objects.equals(fileKey, other.fileKey);
+    }
+
+    @Override
+    public final String toString() {
+        return "size=" + size + ", lastModified=" + lastModified + ", fileKey=" + fileKey + ", checksum=" + checksum;
+    }
+
+}
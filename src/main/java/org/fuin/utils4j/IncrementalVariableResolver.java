@@ -0,0 +1,315 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Resolves the references from variable values to other variable names and allows changing single variables afterwards. A change only
+ * re-resolves the variable itself and all variables that directly or indirectly reference it. The depth and resolved values are always the
+ * same as a new {@link VariableResolver} would return for the current variables. This class is not thread-safe.
+ */
+public final class IncrementalVariableResolver {
+
+    private final Map<String, String> unresolved;
+
+    private final Map<String, Integer> depth;
+
+    private final Map<String, String> resolved;
+
+    /** Variable name and the names it references. */
+    private final Map<String, Set<String>> references;
+
+    /** Variable name (known or unknown) and the names of the variables that reference it. */
+    private final Map<String, Set<String>> dependents;
+
+    /**
+     * Constructor with variable map.
+     *
+     * @param unresolved
+     *            Map to use - May be <code>null</code>.
+     */
+    public IncrementalVariableResolver(final Map<String, String> unresolved) {
+        final VariableResolver resolver = new VariableResolver(unresolved);
+        this.unresolved = resolver.getUnresolved();
+        this.depth = resolver.getDepth();
+        this.resolved = resolver.getResolved();
+        this.references = new HashMap<>();
+        this.dependents = new HashMap<>();
+        for (final Map.Entry<String, String> entry : this.unresolved.entrySet()) {
+            final Set<String> refs = VariableResolver.references(entry.getValue());
+            references.put(entry.getKey(), refs);
+            for (final String ref : refs) {
+                dependents.computeIfAbsent(ref, k -> new HashSet<>()).add(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Adds a new or changes an existing variable and re-resolves all variables that depend on it.
+     *
+     * @param name
+     *            Name of the variable - Cannot be <code>null</code>.
+     * @param value
+     *            Unresolved value - May be <code>null</code>.
+     *
+     * @return Names of all variables with a changed resolved value - Never <code>null</code>, but may be empty.
+     *
+     * @throws IllegalStateException
+     *             The new value would create a cycle. Nothing is changed in this case.
+     */
+    public final Set<String> put(final String name, final String value) {
+        Utils4J.checkNotNull("name", name);
+
+        if (unresolved.containsKey(name) && Objects.equals(unresolved.get(name), value)) {
+            return Collections.emptySet();
+        }
+
+        final Set<String> affected = affected(name);
+        final Set<String> newRefs = VariableResolver.references(value);
+        for (final String ref : newRefs) {
+            if (affected.contains(ref)) {
+                throw new IllegalStateException("Cycle: " + name + " > " + cyclePath(ref, name, affected));
+            }
+        }
+
+        removeReferences(name);
+        unresolved.put(name, value);
+        references.put(name, newRefs);
+        for (final String ref : newRefs) {
+            dependents.computeIfAbsent(ref, k -> new HashSet<>()).add(name);
+            if (!depth.containsKey(ref)) {
+                // Unknown variable
+                depth.put(ref, 0);
+            }
+        }
+
+        return update(affected);
+    }
+
+    /**
+     * Removes a variable and re-resolves all variables that depend on it.
+     *
+     * @param name
+     *            Name of the variable - Cannot be <code>null</code>.
+     *
+     * @return Names of all variables with a changed resolved value including the removed one - Never <code>null</code>, but may be empty.
+     */
+    public final Set<String> remove(final String name) {
+        Utils4J.checkNotNull("name", name);
+
+        if (!unresolved.containsKey(name)) {
+            return Collections.emptySet();
+        }
+
+        final Set<String> affected = affected(name);
+        affected.remove(name);
+
+        removeReferences(name);
+        references.remove(name);
+        unresolved.remove(name);
+        resolved.remove(name);
+        if (dependents.containsKey(name)) {
+            // Still referenced, but now unknown
+            depth.put(name, 0);
+        } else {
+            depth.remove(name);
+        }
+
+        final Set<String> changed = update(affected);
+        changed.add(name);
+        return changed;
+    }
+
+    /**
+     * Removes the variable from the dependents of all variables it references. Unknown variables that are no longer referenced are removed.
+     *
+     * @param name
+     *            Variable to remove the references for.
+     */
+    private void removeReferences(final String name) {
+        final Set<String> oldRefs = references.get(name);
+        if (oldRefs == null) {
+            return;
+        }
+        for (final String ref : oldRefs) {
+            final Set<String> deps = dependents.get(ref);
+            deps.remove(name);
+            if (deps.isEmpty()) {
+                dependents.remove(ref);
+                if (!unresolved.containsKey(ref)) {
+                    depth.remove(ref);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the variable and all variables that directly or indirectly reference it.
+     *
+     * @param name
+     *            Variable to start with.
+     *
+     * @return Names in no special order.
+     */
+    private Set<String> affected(final String name) {
+        final Set<String> affected = new HashSet<>();
+        final Deque<String> todo = new ArrayDeque<>();
+        affected.add(name);
+        todo.add(name);
+        while (!todo.isEmpty()) {
+            final Set<String> deps = dependents.get(todo.poll());
+            if (deps != null) {
+                for (final String dep : deps) {
+                    if (affected.add(dep)) {
+                        todo.add(dep);
+                    }
+                }
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Finds a reference path between two variables inside a set of variables.
+     *
+     * @param from
+     *            Start variable.
+     * @param to
+     *            Target variable.
+     * @param allowed
+     *            Variables the path may use.
+     *
+     * @return Path in the same format as used for cycle messages.
+     */
+    private String cyclePath(final String from, final String to, final Set<String> allowed) {
+        final Map<String, String> previous = new HashMap<>();
+        final Deque<String> todo = new ArrayDeque<>();
+        previous.put(from, null);
+        todo.add(from);
+        while (!todo.isEmpty()) {
+            final String current = todo.poll();
+            if (current.equals(to)) {
+                break;
+            }
+            for (final String ref : references.getOrDefault(current, Collections.emptySet())) {
+                if (allowed.contains(ref) && !previous.containsKey(ref)) {
+                    previous.put(ref, current);
+                    todo.add(ref);
+                }
+            }
+        }
+        final Deque<String> path = new ArrayDeque<>();
+        for (String name = to; name != null; name = previous.get(name)) {
+            path.push(name);
+        }
+        return String.join(" > ", path);
+    }
+
+    /**
+     * Recalculates depth and resolved value for a set of variables. All references outside the set must already be up-to-date.
+     *
+     * @param affected
+     *            Variables to update.
+     *
+     * @return Names of the variables with a changed resolved value.
+     */
+    private Set<String> update(final Set<String> affected) {
+
+        // Count references that must be updated first
+        final Map<String, Integer> pending = new HashMap<>();
+        final Deque<String> ready = new ArrayDeque<>();
+        for (final String name : affected) {
+            int count = 0;
+            for (final String ref : references.getOrDefault(name, Collections.emptySet())) {
+                if (affected.contains(ref)) {
+                    count++;
+                }
+            }
+            pending.put(name, count);
+            if (count == 0) {
+                ready.add(name);
+            }
+        }
+
+        final Set<String> changed = new LinkedHashSet<>();
+        while (!ready.isEmpty()) {
+            final String name = ready.poll();
+            if (unresolved.containsKey(name)) {
+                int d = 0;
+                for (final String ref : references.get(name)) {
+                    d = Math.max(d, depth.get(ref) + 1);
+                }
+                depth.put(name, d);
+                final String newValue = Utils4J.replaceCrLfTab(Utils4J.replaceVars(unresolved.get(name), resolved));
+                final boolean known = resolved.containsKey(name);
+                final String oldValue = resolved.put(name, newValue);
+                if (!known || !Objects.equals(oldValue, newValue)) {
+                    changed.add(name);
+                }
+            }
+            for (final String dep : dependents.getOrDefault(name, Collections.emptySet())) {
+                final Integer count = pending.get(dep);
+                if (count != null) {
+                    pending.put(dep, count - 1);
+                    if (count == 1) {
+                        ready.add(dep);
+                    }
+                }
+            }
+        }
+        return changed;
+
+    }
+
+    /**
+     * Returns the variable names and how many steps are necessary to resolve all references to other variables.
+     *
+     * @return Unmodifiable names and state of all known variables - Never <code>null</code>, but may be empty.
+     */
+    public final Map<String, Integer> getDepth() {
+        return Collections.unmodifiableMap(depth);
+    }
+
+    /**
+     * Returns a map of resolved name/value pairs.
+     *
+     * @return Unmodifiable variable map - Never <code>null</code>, but may be empty.
+     */
+    public final Map<String, String> getResolved() {
+        return Collections.unmodifiableMap(resolved);
+    }
+
+    /**
+     * Returns a map of unresolved name/value pairs.
+     *
+     * @return Unmodifiable variable map - Never <code>null</code>, but may be empty.
+     */
+    public final Map<String, String> getUnresolved() {
+        return Collections.unmodifiableMap(unresolved);
+    }
+
+}
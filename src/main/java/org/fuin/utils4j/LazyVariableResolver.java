@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the references from variable values to other variable names only when a variable is requested. Only the requested variable and
+ * the variables it directly or indirectly references are resolved. The results are cached, so each variable is usually resolved only once.
+ * The values are the same as {@link VariableResolver#getResolved()} returns for the same map, but a cycle is only detected when a variable
+ * that is part of it is requested. This class is thread-safe. Threads requesting the same unresolved variable at the same time may both
+ * resolve it, but always get the same result.
+ */
+public final class LazyVariableResolver {
+
+    private final Map<String, String> unresolved;
+
+    private final ConcurrentMap<String, String> resolved;
+
+    /**
+     * Constructor with variable map.
+     *
+     * @param unresolved
+     *            Map to use - May be <code>null</code>.
+     */
+    public LazyVariableResolver(final Map<String, String> unresolved) {
+        if (unresolved == null) {
+            this.unresolved = Collections.emptyMap();
+        } else {
+            this.unresolved = Collections.unmodifiableMap(new HashMap<>(unresolved));
+        }
+        this.resolved = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the value of a variable with all references replaced.
+     *
+     * @param name
+     *            Name of the variable - Cannot be <code>null</code>.
+     *
+     * @return Resolved value or <code>null</code> if the variable is unknown or has a <code>null</code> value.
+     *
+     * @throws IllegalStateException
+     *             The variable is part of or references a cycle.
+     */
+    public final String get(final String name) {
+        Utils4J.checkNotNull("name", name);
+        final String value = resolved.get(name);
+        if (value != null) {
+            return value;
+        }
+        if (unresolved.get(name) == null) {
+            return null;
+        }
+        resolve(name);
+        return resolved.get(name);
+    }
+
+    /**
+     * Returns if a variable with the given name exists.
+     *
+     * @param name
+     *            Name of the variable - Cannot be <code>null</code>.
+     *
+     * @return If the variable is known <code>true</code> else <code>false</code>.
+     */
+    public final boolean containsKey(final String name) {
+        Utils4J.checkNotNull("name", name);
+        return unresolved.containsKey(name);
+    }
+
+    /**
+     * Returns if a variable was already resolved.
+     *
+     * @param name
+     *            Name of the variable - Cannot be <code>null</code>.
+     *
+     * @return If the resolved value is cached <code>true</code> else <code>false</code>.
+     */
+    public final boolean isResolved(final String name) {
+        Utils4J.checkNotNull("name", name);
+        return resolved.containsKey(name);
+    }
+
+    /**
+     * Returns a map of unresolved name/value pairs.
+     *
+     * @return Unmodifiable variable map - Never <code>null</code>, but may be empty.
+     */
+    public final Map<String, String> getUnresolved() {
+        return unresolved;
+    }
+
+    /**
+     * Resolves a variable and all variables it references that are not resolved yet with a depth first search. Variables with a
+     * <code>null</code> value are never cached and are left unchanged when referenced, like unknown variables.
+     *
+     * @param start
+     *            Variable to resolve.
+     */
+    private void resolve(final String start) {
+
+        final Set<String> path = new LinkedHashSet<>();
+        final Deque<Node> stack = new ArrayDeque<>();
+        path.add(start);
+        stack.push(new Node(start, VariableResolver.references(unresolved.get(start))));
+
+        while (!stack.isEmpty()) {
+            final Node node = stack.peek();
+            if (node.refs.hasNext()) {
+                final String refName = node.refs.next();
+
+                // Check for cycles
+                if (path.contains(refName)) {
+                    final StringBuilder sb = new StringBuilder();
+                    for (final String name : path) {
+                        sb.append(name + " > ");
+                    }
+                    sb.append(refName);
+                    throw new IllegalStateException("Cycle: " + sb);
+                }
+
+                final String refValue = unresolved.get(refName);
+                if ((refValue != null) && !resolved.containsKey(refName)) {
+                    path.add(refName);
+                    stack.push(new Node(refName, VariableResolver.references(refValue)));
+                }
+            } else {
+                stack.pop();
+                path.remove(node.name);
+                // All references are resolved now
+                resolved.putIfAbsent(node.name, Utils4J.replaceCrLfTab(Utils4J.replaceVars(unresolved.get(node.name), resolved)));
+            }
+        }
+
+    }
+
+    /**
+     * Variable on the stack of the depth first search.
+     */
+    private static final class Node {
+
+        private final String name;
+
+        private final Iterator<String> refs;
+
+        public Node(final String name, final Set<String> refs) {
+            this.name = name;
+            this.refs = refs.iterator();
+        }
+
+    }
+
+}
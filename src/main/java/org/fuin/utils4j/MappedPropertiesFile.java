@@ -0,0 +1,325 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read only access to a large file in the format of a {@link PropertiesFile}. The file is mapped into memory and only scanned for the
+ * positions of keys and values on byte level when it's opened. Keys and values are decoded only when a property is accessed. The encoding
+ * must be compatible with ASCII for the '=' and line break characters (like "UTF-8" or "ISO-8859-1"). As the content is read from the
+ * mapped file, the file must not be overwritten while this object is in use. Writers should use
+ * {@link PropertiesFile#setAtomicSave(boolean)} that replaces the file instead. This class is thread-safe.
+ */
+public final class MappedPropertiesFile {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final File file;
+
+    private final Charset charset;
+
+    private final ByteBuffer buffer;
+
+    private final Index index;
+
+    /**
+     * Constructor with file. Encoding is "UTF-8".
+     *
+     * @param file
+     *            File to map - Cannot be <code>null</code>.
+     *
+     * @throws IOException
+     *             Error mapping the file.
+     */
+    public MappedPropertiesFile(final File file) throws IOException {
+        this(file, "UTF-8");
+    }
+
+    /**
+     * Constructor with file and encoding.
+     *
+     * @param file
+     *            File to map - Cannot be <code>null</code>.
+     * @param encoding
+     *            File encoding ("UTF-8" etc.) - Cannot be <code>null</code>.
+     *
+     * @throws IOException
+     *             Error mapping the file.
+     */
+    public MappedPropertiesFile(final File file, final String encoding) throws IOException {
+        super();
+        Utils4J.checkNotNull("file", file);
+        Utils4J.checkNotNull("encoding", encoding);
+        this.file = file;
+        this.charset = Charset.forName(encoding);
+        if (!Arrays.equals("a=\r\n".getBytes(charset), new byte[] { 'a', '=', '\r', '\n' })) {
+            throw new IllegalArgumentException("The encoding is not compatible with ASCII: " + encoding);
+        }
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to be mapped (" + length + " bytes): " + file);
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+        this.index = new Index(buffer);
+    }
+
+    private String decode(final int start, final int end) {
+        final byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, charset);
+    }
+
+    /**
+     * Returns the mapped file.
+     *
+     * @return Properties file reference.
+     */
+    public final File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the encoding of the file.
+     *
+     * @return File encoding ("UTF-8" etc.)
+     */
+    public final String getEncoding() {
+        return charset.name();
+    }
+
+    /**
+     * Number of properties.
+     *
+     * @return Number of different keys.
+     */
+    public final int size() {
+        return index.size;
+    }
+
+    /**
+     * Determines if a property exists. Only the requested key is encoded and compared on byte level, nothing is decoded.
+     *
+     * @param key
+     *            Key to find - Cannot be <code>null</code>.
+     *
+     * @return If the key is known <code>true</code> else <code>false</code>.
+     */
+    public final boolean containsKey(final String key) {
+        Utils4J.checkNotNull("key", key);
+        return index.find(key.getBytes(charset)) > -1;
+    }
+
+    /**
+     * Returns a value for a given key. Only this value is decoded.
+     *
+     * @param key
+     *            Key to find - Cannot be <code>null</code>.
+     *
+     * @return Value or <code>null</code> if the key is unknown.
+     */
+    public final String get(final String key) {
+        Utils4J.checkNotNull("key", key);
+        final int entry = index.find(key.getBytes(charset));
+        if (entry == -1) {
+            return null;
+        }
+        return decode(index.valueStart[entry], index.valueEnd[entry]);
+    }
+
+    /**
+     * Returns a list of all keys in file order. All keys are decoded, so this should only be used if really necessary.
+     *
+     * @return List of keys.
+     */
+    public final List<String> getKeyList() {
+        final List<String> keys = new ArrayList<>(index.size);
+        for (final int entry : index.sortedEntries()) {
+            keys.add(decode(index.keyStart[entry], index.keyEnd[entry]));
+        }
+        return keys;
+    }
+
+    /**
+     * Positions of all properties in the mapped file and a hash table to find them by key.
+     */
+    private static final class Index {
+
+        private final ByteBuffer buffer;
+
+        private int size;
+
+        /** Start of the key for each entry. */
+        private int[] keyStart;
+
+        /** End of the key (exclusive) for each entry - This is the position of the first '='. */
+        private int[] keyEnd;
+
+        /** Start of the value for each entry. */
+        private int[] valueStart;
+
+        /** End of the value (exclusive) for each entry. */
+        private int[] valueEnd;
+
+        /** Hash of the key bytes for each entry. */
+        private int[] hashes;
+
+        /** Open addressing hash table with the entry number plus one or zero if the slot is free. */
+        private int[] table;
+
+        Index(final ByteBuffer buffer) {
+            this.buffer = buffer;
+            keyStart = new int[INITIAL_CAPACITY];
+            keyEnd = new int[INITIAL_CAPACITY];
+            valueStart = new int[INITIAL_CAPACITY];
+            valueEnd = new int[INITIAL_CAPACITY];
+            hashes = new int[INITIAL_CAPACITY];
+            final int limit = buffer.limit();
+            int pos = 0;
+            while (pos < limit) {
+                final int start = pos;
+                int sep = -1;
+                int hash = 0;
+                byte b = 0;
+                while ((pos < limit) && ((b = buffer.get(pos)) != '\n') && (b != '\r')) {
+                    if (sep == -1) {
+                        if (b == '=') {
+                            sep = pos;
+                        } else {
+                            hash = 31 * hash + b;
+                        }
+                    }
+                    pos++;
+                }
+                if (sep > -1) {
+                    add(start, sep, pos, hash);
+                }
+                // Skip the line break ("\n", "\r" or "\r\n")
+                if ((b == '\r') && (pos + 1 < limit) && (buffer.get(pos + 1) == '\n')) {
+                    pos++;
+                }
+                pos++;
+            }
+            table = new int[Integer.highestOneBit(Math.max(size, 1)) << 2];
+            final int count = size;
+            for (int i = 0; i < count; i++) {
+                insert(i);
+            }
+        }
+
+        private void add(final int start, final int sep, final int end, final int hash) {
+            if (size == keyStart.length) {
+                final int capacity = size * 2;
+                keyStart = Arrays.copyOf(keyStart, capacity);
+                keyEnd = Arrays.copyOf(keyEnd, capacity);
+                valueStart = Arrays.copyOf(valueStart, capacity);
+                valueEnd = Arrays.copyOf(valueEnd, capacity);
+                hashes = Arrays.copyOf(hashes, capacity);
+            }
+            keyStart[size] = start;
+            keyEnd[size] = sep;
+            valueStart[size] = sep + 1;
+            valueEnd[size] = end;
+            hashes[size] = hash;
+            size++;
+        }
+
+        private void insert(final int entry) {
+            final int mask = table.length - 1;
+            int slot = hashes[entry] & mask;
+            while (table[slot] != 0) {
+                final int other = table[slot] - 1;
+                if ((hashes[other] == hashes[entry]) && keyEquals(other, keyStart[entry], keyEnd[entry] - keyStart[entry])) {
+                    // Duplicate key: Keeps the position of the first and the value of the last like a properties file
+                    valueStart[other] = valueStart[entry];
+                    valueEnd[other] = valueEnd[entry];
+                    size--;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entry + 1;
+        }
+
+        private boolean keyEquals(final int entry, final int start, final int len) {
+            if (keyEnd[entry] - keyStart[entry] != len) {
+                return false;
+            }
+            for (int i = 0; i < len; i++) {
+                if (buffer.get(keyStart[entry] + i) != buffer.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int find(final byte[] key) {
+            int hash = 0;
+            for (final byte b : key) {
+                hash = 31 * hash + b;
+            }
+            final int mask = table.length - 1;
+            int slot = hash & mask;
+            while (table[slot] != 0) {
+                final int entry = table[slot] - 1;
+                if ((hashes[entry] == hash) && keyEquals(entry, key)) {
+                    return entry;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private boolean keyEquals(final int entry, final byte[] key) {
+            if (keyEnd[entry] - keyStart[entry] != key.length) {
+                return false;
+            }
+            final int start = keyStart[entry];
+            for (int i = 0; i < key.length; i++) {
+                if (buffer.get(start + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int[] sortedEntries() {
+            final int[] entries = new int[size];
+            int count = 0;
+            for (final int slot : table) {
+                if (slot != 0) {
+                    entries[count++] = slot - 1;
+                }
+            }
+            Arrays.sort(entries);
+            return entries;
+        }
+
+    }
+
+}
@@ -0,0 +1,572 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A {@link Taggable} map that is stored in a persistent hash trie. A change copies only the path from the root to the changed entry, all
+ * other nodes are shared with the previous versions of the map. Setting a tag or a savepoint simply keeps a reference to the current root
+ * and reverting sets the root back, so both take constant time regardless of the number of entries or changes. In addition to the single
+ * tag of the {@link Taggable} interface, any number of nested savepoints can be created with {@link #savepoint()} and rolled back with
+ * {@link #rollback()} or {@link #rollbackTo(int)}. Unlike {@link ChangeTrackingMap} this is not a wrapper - The entries are copied into the
+ * trie at construction time. This class is not thread-safe.
+ *
+ * @param <K>
+ *            the type of keys maintained by this map
+ * @param <V>
+ *            the type of mapped values
+ */
+public final class PersistentTaggableMap<K, V> extends AbstractMap<K, V> implements Taggable {
+
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final State EMPTY = new State(null, 0);
+
+    private final Deque<State> savepoints;
+
+    private State current;
+
+    /** State when tagged or <code>null</code> if not tagged. */
+    private State tagged;
+
+    /**
+     * Default constructor with an empty map. The map is tagged at construction time - This means {@link #isTagged()} will return
+     * <code>true</code> without calling {@link #tag()} first.
+     */
+    public PersistentTaggableMap() {
+        super();
+        this.savepoints = new ArrayDeque<>();
+        this.current = EMPTY;
+        this.tagged = EMPTY;
+    }
+
+    /**
+     * Constructor with initial content. The map is tagged after copying the content - This means {@link #isTagged()} will return
+     * <code>true</code> without calling {@link #tag()} first.
+     *
+     * @param map
+     *            Entries to copy - Cannot be <code>null</code>.
+     */
+    public PersistentTaggableMap(final Map<? extends K, ? extends V> map) {
+        this();
+        Utils4J.checkNotNull("map", map);
+        putAll(map);
+        this.tagged = current;
+    }
+
+    @Override
+    public final int size() {
+        return current.size;
+    }
+
+    @Override
+    public final boolean containsKey(final Object key) {
+        return find(current.root, hash(key), key) != null;
+    }
+
+    @Override
+    public final V get(final Object key) {
+        final Leaf leaf = find(current.root, hash(key), key);
+        if (leaf == null) {
+            return null;
+        }
+        return value(leaf);
+    }
+
+    @Override
+    public final V put(final K key, final V value) {
+        final int hash = hash(key);
+        final Leaf old = find(current.root, hash, key);
+        final Object root = put(current.root, new Leaf(hash, key, value), 0);
+        if (root != current.root) {
+            current = new State(root, old == null ? current.size + 1 : current.size);
+        }
+        return old == null ? null : value(old);
+    }
+
+    @Override
+    public final V remove(final Object key) {
+        final int hash = hash(key);
+        final Leaf old = find(current.root, hash, key);
+        if (old == null) {
+            return null;
+        }
+        current = new State(remove(current.root, hash, key, 0), current.size - 1);
+        return value(old);
+    }
+
+    @Override
+    public final void clear() {
+        current = EMPTY;
+    }
+
+    @Override
+    public final Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new EntryIterator(current.root);
+            }
+
+            @Override
+            public int size() {
+                return current.size;
+            }
+
+        };
+    }
+
+    /**
+     * Remembers the current state. Savepoints can be nested.
+     *
+     * @return Number of the new savepoint - The first one is 1.
+     */
+    public final int savepoint() {
+        savepoints.push(current);
+        return savepoints.size();
+    }
+
+    /**
+     * Returns the number of savepoints.
+     *
+     * @return Number of savepoints that can be rolled back.
+     */
+    public final int getSavepointCount() {
+        return savepoints.size();
+    }
+
+    /**
+     * Reverts all changes made since the latest savepoint and removes it.
+     */
+    public final void rollback() {
+        if (savepoints.isEmpty()) {
+            throw new IllegalStateException("No savepoint exists");
+        }
+        current = savepoints.pop();
+    }
+
+    /**
+     * Reverts all changes made since the given savepoint. The savepoint and all savepoints created after it are removed.
+     *
+     * @param savepoint
+     *            Number returned by {@link #savepoint()}.
+     */
+    public final void rollbackTo(final int savepoint) {
+        if ((savepoint < 1) || (savepoint > savepoints.size())) {
+            throw new IllegalArgumentException("Unknown savepoint " + savepoint + " (" + savepoints.size() + " exist)");
+        }
+        while (savepoints.size() > savepoint) {
+            savepoints.pop();
+        }
+        current = savepoints.pop();
+    }
+
+    /**
+     * Returns if the map has changed since tagging. Only the parts of the trie that are not shared are compared.
+     *
+     * @return If entries have been added, changed or removed <code>true</code> else <code>false</code>.
+     */
+    @Override
+    public final boolean hasChangedSinceTagging() {
+        return (tagged != null) && !sameContent(tagged.root, current.root);
+    }
+
+    @Override
+    public final boolean isTagged() {
+        return tagged != null;
+    }
+
+    /**
+     * Reverts all changes made since setting the tag. All savepoints are removed. If the map is not tagged this method will do nothing.
+     */
+    @Override
+    public final void revertToTag() {
+        if (tagged != null) {
+            current = tagged;
+            savepoints.clear();
+        }
+    }
+
+    @Override
+    public final void tag() {
+        if (tagged == null) {
+            tagged = current;
+        }
+    }
+
+    /**
+     * Removes the tag and all savepoints.
+     */
+    @Override
+    public final void untag() {
+        tagged = null;
+        savepoints.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(final Leaf leaf) {
+        return (V) leaf.value;
+    }
+
+    private static int hash(final Object key) {
+        final int h = Objects.hashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(final int hash, final int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static int index(final int bitmap, final int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    private static int hashOf(final Object node) {
+        if (node instanceof Leaf) {
+            return ((Leaf) node).hash;
+        }
+        return ((Collision) node).hash;
+    }
+
+    private static Leaf find(final Object root, final int hash, final Object key) {
+        Object node = root;
+        int shift = 0;
+        while (node instanceof Branch) {
+            final Branch branch = (Branch) node;
+            final int bit = bit(hash, shift);
+            if ((branch.bitmap & bit) == 0) {
+                return null;
+            }
+            node = branch.children[index(branch.bitmap, bit)];
+            shift = shift + BITS;
+        }
+        if (node instanceof Leaf) {
+            final Leaf leaf = (Leaf) node;
+            return (leaf.hash == hash) && Objects.equals(leaf.key, key) ? leaf : null;
+        }
+        if (node instanceof Collision) {
+            final Collision collision = (Collision) node;
+            if (collision.hash == hash) {
+                for (final Leaf leaf : collision.leaves) {
+                    if (Objects.equals(leaf.key, key)) {
+                        return leaf;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a node with the leaf added or replaced. If nothing changed, the same node is returned.
+     */
+    private static Object put(final Object node, final Leaf leaf, final int shift) {
+        if (node == null) {
+            return leaf;
+        }
+        if (node instanceof Branch) {
+            final Branch branch = (Branch) node;
+            final int bit = bit(leaf.hash, shift);
+            final int idx = index(branch.bitmap, bit);
+            if ((branch.bitmap & bit) == 0) {
+                final Object[] children = new Object[branch.children.length + 1];
+                System.arraycopy(branch.children, 0, children, 0, idx);
+                children[idx] = leaf;
+                System.arraycopy(branch.children, idx, children, idx + 1, branch.children.length - idx);
+                return new Branch(branch.bitmap | bit, children);
+            }
+            final Object child = branch.children[idx];
+            final Object newChild = put(child, leaf, shift + BITS);
+            if (newChild == child) {
+                return branch;
+            }
+            final Object[] children = branch.children.clone();
+            children[idx] = newChild;
+            return new Branch(branch.bitmap, children);
+        }
+        if (hashOf(node) != leaf.hash) {
+            return split(node, leaf, shift);
+        }
+        if (node instanceof Leaf) {
+            final Leaf old = (Leaf) node;
+            if (!Objects.equals(old.key, leaf.key)) {
+                return new Collision(leaf.hash, new Leaf[] { old, leaf });
+            }
+            return Objects.equals(old.value, leaf.value) ? old : leaf;
+        }
+        final Collision collision = (Collision) node;
+        for (int i = 0; i < collision.leaves.length; i++) {
+            final Leaf old = collision.leaves[i];
+            if (Objects.equals(old.key, leaf.key)) {
+                if (Objects.equals(old.value, leaf.value)) {
+                    return collision;
+                }
+                final Leaf[] leaves = collision.leaves.clone();
+                leaves[i] = leaf;
+                return new Collision(leaf.hash, leaves);
+            }
+        }
+        final Leaf[] leaves = new Leaf[collision.leaves.length + 1];
+        System.arraycopy(collision.leaves, 0, leaves, 0, collision.leaves.length);
+        leaves[collision.leaves.length] = leaf;
+        return new Collision(leaf.hash, leaves);
+    }
+
+    /**
+     * Creates branches down to the level where the hashes of a leaf (or collision) and a new leaf differ.
+     */
+    private static Object split(final Object node, final Leaf leaf, final int shift) {
+        final int bitA = bit(hashOf(node), shift);
+        final int bitB = bit(leaf.hash, shift);
+        if (bitA == bitB) {
+            return new Branch(bitA, new Object[] { split(node, leaf, shift + BITS) });
+        }
+        if (Integer.compareUnsigned(bitA, bitB) < 0) {
+            return new Branch(bitA | bitB, new Object[] { node, leaf });
+        }
+        return new Branch(bitA | bitB, new Object[] { leaf, node });
+    }
+
+    /**
+     * Returns a node without the key or <code>null</code> if the node is empty afterwards. A branch is never left with a single leaf or
+     * collision as only child, so the shape of the trie only depends on the contained keys.
+     */
+    private static Object remove(final Object node, final int hash, final Object key, final int shift) {
+        if (node instanceof Leaf) {
+            return null;
+        }
+        if (node instanceof Collision) {
+            final Collision collision = (Collision) node;
+            final List<Leaf> leaves = new ArrayList<>(collision.leaves.length);
+            for (final Leaf leaf : collision.leaves) {
+                if (!Objects.equals(leaf.key, key)) {
+                    leaves.add(leaf);
+                }
+            }
+            if (leaves.size() == 1) {
+                return leaves.get(0);
+            }
+            return new Collision(hash, leaves.toArray(new Leaf[0]));
+        }
+        final Branch branch = (Branch) node;
+        final int bit = bit(hash, shift);
+        final int idx = index(branch.bitmap, bit);
+        final Object newChild = remove(branch.children[idx], hash, key, shift + BITS);
+        if (newChild == null) {
+            if (branch.children.length == 1) {
+                return null;
+            }
+            final Object[] children = new Object[branch.children.length - 1];
+            System.arraycopy(branch.children, 0, children, 0, idx);
+            System.arraycopy(branch.children, idx + 1, children, idx, children.length - idx);
+            if ((children.length == 1) && !(children[0] instanceof Branch)) {
+                return children[0];
+            }
+            return new Branch(branch.bitmap & ~bit, children);
+        }
+        if ((branch.children.length == 1) && !(newChild instanceof Branch)) {
+            return newChild;
+        }
+        final Object[] children = branch.children.clone();
+        children[idx] = newChild;
+        return new Branch(branch.bitmap, children);
+    }
+
+    /**
+     * Compares two tries. Shared nodes are not visited.
+     */
+    private static boolean sameContent(final Object a, final Object b) {
+        if (a == b) {
+            return true;
+        }
+        if ((a == null) || (b == null) || (a.getClass() != b.getClass())) {
+            return false;
+        }
+        if (a instanceof Leaf) {
+            final Leaf leafA = (Leaf) a;
+            final Leaf leafB = (Leaf) b;
+            return (leafA.hash == leafB.hash) && Objects.equals(leafA.key, leafB.key) && Objects.equals(leafA.value, leafB.value);
+        }
+        if (a instanceof Collision) {
+            final Collision collisionA = (Collision) a;
+            final Collision collisionB = (Collision) b;
+            if ((collisionA.hash != collisionB.hash) || (collisionA.leaves.length != collisionB.leaves.length)) {
+                return false;
+            }
+            for (final Leaf leaf : collisionA.leaves) {
+                final Leaf other = find(collisionB, leaf.hash, leaf.key);
+                if ((other == null) || !Objects.equals(leaf.value, other.value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        final Branch branchA = (Branch) a;
+        final Branch branchB = (Branch) b;
+        if (branchA.bitmap != branchB.bitmap) {
+            return false;
+        }
+        for (int i = 0; i < branchA.children.length; i++) {
+            if (!sameContent(branchA.children[i], branchB.children[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Size and root of one version of the map. The trie nodes are {@link Leaf}, {@link Collision} and {@link Branch} instances that are
+     * never changed after construction.
+     */
+    private static final class State {
+
+        private final Object root;
+
+        private final int size;
+
+        State(final Object root, final int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+    }
+
+    /**
+     * Single entry.
+     */
+    private static final class Leaf {
+
+        private final int hash;
+
+        private final Object key;
+
+        private final Object value;
+
+        Leaf(final int hash, final Object key, final Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+    }
+
+    /**
+     * Entries with different keys but the same hash.
+     */
+    private static final class Collision {
+
+        private final int hash;
+
+        private final Leaf[] leaves;
+
+        Collision(final int hash, final Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+    }
+
+    /**
+     * Inner node with up to 32 children selected by 5 bits of the hash.
+     */
+    private static final class Branch {
+
+        private final int bitmap;
+
+        private final Object[] children;
+
+        Branch(final int bitmap, final Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+    }
+
+    /**
+     * Iterates over the version of the map that was current when the iterator was created. Removing an entry removes it from the map.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        private final Deque<Object> stack = new ArrayDeque<>();
+
+        private final Deque<Leaf> leaves = new ArrayDeque<>();
+
+        private Leaf last;
+
+        EntryIterator(final Object root) {
+            if (root != null) {
+                stack.push(root);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (leaves.isEmpty() && !stack.isEmpty()) {
+                final Object node = stack.pop();
+                if (node instanceof Leaf) {
+                    leaves.add((Leaf) node);
+                } else if (node instanceof Collision) {
+                    for (final Leaf leaf : ((Collision) node).leaves) {
+                        leaves.add(leaf);
+                    }
+                } else {
+                    final Object[] children = ((Branch) node).children;
+                    for (int i = children.length - 1; i >= 0; i--) {
+                        stack.push(children[i]);
+                    }
+                }
+            }
+            return !leaves.isEmpty();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = leaves.poll();
+            return new AbstractMap.SimpleImmutableEntry<>((K) last.key, (V) last.value);
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            PersistentTaggableMap.this.remove(last.key);
+            last = null;
+        }
+
+    }
+
+}
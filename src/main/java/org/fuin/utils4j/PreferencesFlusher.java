@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.prefs.BackingStoreException;
+
+/**
+ * Writes flushed {@link PropertiesFilePreferences} nodes in the background. A <code>flush()</code> of a node that uses this flusher only
+ * queues the node and returns immediately. The queued nodes are written after a delay or as soon as the maximum batch size is reached. A
+ * <code>sync()</code> of a node writes the queued changes of the node before reading the file. Errors that occur in the background are
+ * thrown by the next call to {@link #drain()}. This class is thread-safe.
+ */
+public final class PreferencesFlusher implements AutoCloseable {
+
+    private final int maxBatchSize;
+
+    private final Executor executor;
+
+    private final Executor delayedExecutor;
+
+    private final Set<PropertiesFilePreferences> pending;
+
+    private BackingStoreException failure;
+
+    private boolean closed;
+
+    /**
+     * Constructor with delay. Nodes are written by the default asynchronous executor of this library.
+     *
+     * @param delayMillis
+     *            Milliseconds to wait after the first queued node for more nodes before writing.
+     * @param maxBatchSize
+     *            Number of queued nodes that are written immediately without waiting for the delay.
+     */
+    public PreferencesFlusher(final long delayMillis, final int maxBatchSize) {
+        this(delayMillis, maxBatchSize, Utils4J.getDefaultAsyncExecutor());
+    }
+
+    /**
+     * Constructor with all data.
+     *
+     * @param delayMillis
+     *            Milliseconds to wait after the first queued node for more nodes before writing.
+     * @param maxBatchSize
+     *            Number of queued nodes that are written immediately without waiting for the delay.
+     * @param executor
+     *            Executor used to write the nodes - Cannot be <code>null</code>.
+     */
+    public PreferencesFlusher(final long delayMillis, final int maxBatchSize, final Executor executor) {
+        super();
+        Utils4J.checkNotNull("executor", executor);
+        if (delayMillis < 0) {
+            throw new IllegalArgumentException("The argument 'delayMillis' cannot be negative: " + delayMillis);
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The argument 'maxBatchSize' must be greater than zero: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.executor = executor;
+        this.delayedExecutor = CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, executor);
+        this.pending = new LinkedHashSet<>();
+    }
+
+    /**
+     * Queues a node for writing.
+     *
+     * @param node
+     *            Node to write.
+     *
+     * @return If the node was queued <code>true</code> or <code>false</code> if the flusher is closed and the caller has to write the node
+     *         itself.
+     */
+    final synchronized boolean schedule(final PropertiesFilePreferences node) {
+        if (closed) {
+            return false;
+        }
+        if (pending.add(node)) {
+            if (pending.size() == 1) {
+                delayedExecutor.execute(this::drainInBackground);
+            } else if (pending.size() == maxBatchSize) {
+                executor.execute(this::drainInBackground);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes a node from the queue.
+     *
+     * @param node
+     *            Node to remove.
+     *
+     * @return If the node was queued <code>true</code> else <code>false</code>.
+     */
+    final synchronized boolean unschedule(final PropertiesFilePreferences node) {
+        return pending.remove(node);
+    }
+
+    /**
+     * Returns the number of nodes that are waiting to be written.
+     *
+     * @return Number of queued nodes.
+     */
+    public final synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Writes all queued nodes immediately in the caller's thread.
+     *
+     * @throws BackingStoreException
+     *             Writing a node failed now or in the background since the last call.
+     */
+    public final void drain() throws BackingStoreException {
+        final List<PropertiesFilePreferences> batch;
+        synchronized (this) {
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+        for (final PropertiesFilePreferences node : batch) {
+            try {
+                node.write();
+            } catch (final BackingStoreException ex) {
+                fail(ex);
+            }
+        }
+        final BackingStoreException ex;
+        synchronized (this) {
+            ex = failure;
+            failure = null;
+        }
+        if (ex != null) {
+            throw ex;
+        }
+    }
+
+    private void drainInBackground() {
+        try {
+            drain();
+        } catch (final BackingStoreException ex) {
+            // Keep it for the next caller
+            fail(ex);
+        }
+    }
+
+    private synchronized void fail(final BackingStoreException ex) {
+        if (failure == null) {
+            failure = ex;
+        } else {
+            failure.addSuppressed(ex);
+        }
+    }
+
+    /**
+     * Writes all queued nodes. Nodes that are flushed later are written directly by the caller of <code>flush()</code>.
+     *
+     * @throws BackingStoreException
+     *             Writing a node failed.
+     */
+    @Override
+    public final void close() throws BackingStoreException {
+        synchronized (this) {
+            closed = true;
+        }
+        drain();
+    }
+
+}
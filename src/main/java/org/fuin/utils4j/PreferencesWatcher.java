@@ -0,0 +1,293 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.prefs.BackingStoreException;
+
+/**
+ * Observes the directories of {@link PropertiesFilePreferences} nodes that have a <code>PreferenceChangeListener</code> and reloads a node
+ * as soon as its file is changed by another process. The listeners of the node are informed about every value that changed. This makes
+ * polling with <code>sync()</code> unnecessary. Errors that occur in the background are thrown by {@link #close()}. This class is
+ * thread-safe.
+ */
+public final class PreferencesWatcher implements AutoCloseable {
+
+    private final WatchService watchService;
+
+    private final Map<WatchKey, List<Watched>> nodes;
+
+    private BackingStoreException failure;
+
+    private boolean closed;
+
+    /**
+     * Default constructor. Events are processed by the default asynchronous executor of this library.
+     *
+     * @throws IOException
+     *             Error creating the watch service.
+     */
+    public PreferencesWatcher() throws IOException {
+        this(Utils4J.getDefaultAsyncExecutor());
+    }
+
+    /**
+     * Constructor with executor.
+     *
+     * @param executor
+     *            Executor that runs the loop processing the file system events. The loop blocks a thread until the watcher is closed -
+     *            Cannot be <code>null</code>.
+     *
+     * @throws IOException
+     *             Error creating the watch service.
+     */
+    public PreferencesWatcher(final Executor executor) throws IOException {
+        super();
+        Utils4J.checkNotNull("executor", executor);
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.nodes = new HashMap<>();
+        executor.execute(this::run);
+    }
+
+    /**
+     * Starts observing the directory of a node. If the directory does not exist yet, the nearest existing parent directory is observed
+     * until the directory is created.
+     *
+     * @param node
+     *            Node to reload on changes.
+     * @param dir
+     *            Directory of the node.
+     *
+     * @throws IOException
+     *             Error registering the directory.
+     */
+    final synchronized void watch(final PropertiesFilePreferences node, final File dir) throws IOException {
+        if (closed) {
+            return;
+        }
+        final Path path = dir.toPath().toAbsolutePath();
+        final WatchKey key = register(path);
+        final List<Watched> list = nodes.computeIfAbsent(key, k -> new ArrayList<>());
+        for (final Watched watched : list) {
+            if (watched.node == node) {
+                return;
+            }
+        }
+        list.add(new Watched(node, path));
+    }
+
+    private WatchKey register(final Path path) throws IOException {
+        while (true) {
+            final Path existing = nearestExisting(path);
+            final WatchKey key = existing.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            if (existing.equals(nearestExisting(path))) {
+                return key;
+            }
+            // A directory created before the registration produces no event, so observe the deeper one instead
+            if (!nodes.containsKey(key)) {
+                key.cancel();
+            }
+        }
+    }
+
+    private static Path nearestExisting(final Path path) {
+        Path existing = path;
+        while ((existing.getParent() != null) && !Files.isDirectory(existing)) {
+            existing = existing.getParent();
+        }
+        return existing;
+    }
+
+    /**
+     * Stops observing the directory of a node.
+     *
+     * @param node
+     *            Node to remove.
+     */
+    final synchronized void unwatch(final PropertiesFilePreferences node) {
+        for (final Map.Entry<WatchKey, List<Watched>> entry : nodes.entrySet()) {
+            if (entry.getValue().removeIf(watched -> watched.node == node)) {
+                if (entry.getValue().isEmpty()) {
+                    entry.getKey().cancel();
+                    nodes.remove(entry.getKey());
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Observes a directory closer to the node's directory after a directory was created in a parent directory.
+     *
+     * @param key
+     *            Key of the parent directory.
+     * @param watched
+     *            Node that waits for its directory.
+     *
+     * @return If the node's directory is now observed <code>true</code> else <code>false</code>.
+     *
+     * @throws IOException
+     *             Error registering the directory.
+     */
+    private synchronized boolean rewatch(final WatchKey key, final Watched watched) throws IOException {
+        final List<Watched> list = nodes.get(key);
+        if (closed || (list == null) || !list.contains(watched)) {
+            return false;
+        }
+        final WatchKey newKey = register(watched.dir);
+        if (newKey != key) {
+            list.remove(watched);
+            if (list.isEmpty()) {
+                key.cancel();
+                nodes.remove(key);
+            }
+            nodes.computeIfAbsent(newKey, k -> new ArrayList<>()).add(watched);
+        }
+        return watched.dir.equals(newKey.watchable());
+    }
+
+    /**
+     * Returns the number of nodes that are observed.
+     *
+     * @return Number of nodes.
+     */
+    public final synchronized int getWatchedCount() {
+        int count = 0;
+        for (final List<Watched> list : nodes.values()) {
+            count = count + list.size();
+        }
+        return count;
+    }
+
+    private void run() {
+        while (true) {
+            final WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (final ClosedWatchServiceException | InterruptedException ex) {
+                return;
+            }
+            boolean changed = false;
+            final List<WatchEvent<?>> events = key.pollEvents();
+            for (final WatchEvent<?> event : events) {
+                if ((event.kind() == StandardWatchEventKinds.OVERFLOW) || isPreferencesFile(event.context())) {
+                    changed = true;
+                }
+            }
+            final List<Watched> watched;
+            synchronized (this) {
+                final List<Watched> list = nodes.get(key);
+                watched = list == null ? new ArrayList<>() : new ArrayList<>(list);
+                if (!key.reset()) {
+                    // Directory was deleted
+                    nodes.remove(key);
+                }
+            }
+            for (final Watched entry : watched) {
+                try {
+                    if (entry.dir.equals(key.watchable())) {
+                        if (changed) {
+                            entry.node.reload();
+                        }
+                    } else if (!events.isEmpty() && rewatch(key, entry)) {
+                        // The file may have been written before the directory was observed
+                        entry.node.reload();
+                    }
+                } catch (final BackingStoreException | IOException | RuntimeException ex) {
+                    fail(ex);
+                }
+            }
+        }
+    }
+
+    private static boolean isPreferencesFile(final Object context) {
+        final String name = context.toString();
+        return name.equals(PropertiesFilePreferences.FILENAME) || name.equals(PropertiesFilePreferences.FILENAME + ".journal");
+    }
+
+    private synchronized void fail(final Exception ex) {
+        final BackingStoreException bse;
+        if (ex instanceof BackingStoreException) {
+            bse = (BackingStoreException) ex;
+        } else {
+            bse = new BackingStoreException(ex);
+        }
+        if (failure == null) {
+            failure = bse;
+        } else {
+            failure.addSuppressed(bse);
+        }
+    }
+
+    /**
+     * Stops observing all directories.
+     *
+     * @throws BackingStoreException
+     *             Reloading a node failed in the background or closing the watch service failed.
+     */
+    @Override
+    public final void close() throws BackingStoreException {
+        final BackingStoreException ex;
+        synchronized (this) {
+            closed = true;
+            nodes.clear();
+            try {
+                watchService.close();
+            } catch (final IOException ioex) {
+                fail(ioex);
+            }
+            ex = failure;
+            failure = null;
+        }
+        if (ex != null) {
+            throw ex;
+        }
+    }
+
+    /**
+     * Node and the directory it is stored in.
+     */
+    private static final class Watched {
+
+        private final PropertiesFilePreferences node;
+
+        private final Path dir;
+
+        Watched(final PropertiesFilePreferences node, final Path dir) {
+            this.node = node;
+            this.dir = dir;
+        }
+
+    }
+
+}
@@ -18,19 +18,44 @@
 package org.fuin.utils4j;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 /**
- * A properties file that is capable of merging concurrent changes made by another JVM or another process.
+ * A properties file that is capable of merging concurrent changes made by another JVM or another process.<br>
+ * <br>
+ * In journal mode a save only appends the changed and removed properties to a journal file next to the properties file (Name of the
+ * properties file plus ".journal") instead of rewriting the whole file. The journal is replayed on load and compacted into the properties
+ * file when it gets larger than a configurable size. All processes that modify the file must use this class, because only this class
+ * replays the journal. A save without journal mode always compacts an existing journal.<br>
+ * <br>
+ * With atomic save the file is written to a temporary file in the same directory and then renamed to the properties file. So other
+ * processes never read a partially written file, even if the process crashes while saving. As the file is replaced, the lock is acquired
+ * on a separate lock file (Name of the properties file plus ".lock") instead of the properties file itself. All processes that use the file
+ * must use the same setting.
  */
 public class PropertiesFile {
 
+    /** Length of the first line of the journal that contains a unique identifier of the journal. */
+    private static final int JOURNAL_HEADER_LENGTH = 34;
+
     private final File file;
 
+    private final File journalFile;
+
+    private final File lockFile;
+
     private final String encoding;
 
-    private final List<Property> props;
+    /** Properties in file order with the key as index. */
+    private final Map<String, Property> props;
 
     private int tryLockMax = 3;
 
@@ -38,6 +63,21 @@ public class PropertiesFile {
 
     private boolean loaded = false;
 
+    /** State of the file after the last merge or save or <code>null</code> if the properties in memory may differ from it. */
+    private FileFingerprint fingerprint;
+
+    private boolean journalMode = false;
+
+    private long journalMaxSize = 1024 * 1024;
+
+    private boolean atomicSave = false;
+
+    /** Identifier of the journal merged last or <code>null</code> if there was no journal. */
+    private String journalId;
+
+    /** Number of journal bytes already merged. */
+    private long journalPosition;
+
     /**
      * Constructor with file. Encoding is "UTF-8".
      * 
@@ -60,11 +100,13 @@ public class PropertiesFile {
         super();
         Utils4J.checkNotNull("file", file);
         this.file = file;
+        this.journalFile = new File(file.getPath() + ".journal");
+        this.lockFile = new File(file.getPath() + ".lock");
 
         Utils4J.checkNotNull("encoding", encoding);
         this.encoding = encoding;
 
-        this.props = new ArrayList<>();
+        this.props = new LinkedHashMap<>();
 
     }
 
@@ -91,11 +133,12 @@ public class PropertiesFile {
      */
     public final void clear() {
         props.clear();
+        fingerprint = null;
     }
 
     /**
-     * Loads or reloads the content of the underlying file. Current properties in memory will NOT be discarded! If you want to discard the
-     * current values you must call <code>clear()</code> before!
+     * Loads or reloads the content of the underlying file. Properties changed in memory will NOT be discarded! If you want to discard the
+     * current values you must call <code>clear()</code> before! Unchanged properties that were removed from the file are discarded.
      * 
      * @throws IOException
      *             Error reading the file.
@@ -106,16 +149,25 @@ public class PropertiesFile {
      */
     public final void load() throws IOException, LockingFailedException, MergeException {
 
+        if (atomicSave) {
+            try (final RandomAccessFileInputStream lockIn = new RandomAccessFileInputStream(lockFile, "rw")) {
+                final FileLock lock = lockIn.lock(tryLockMax, tryWaitMillis);
+                try (final RandomAccessFileInputStream in = new RandomAccessFileInputStream(file, "rw");
+                        final RandomAccessFile journal = openJournal(false)) {
+                    merge(in, journal);
+                } finally {
+                    lock.release();
+                }
+            }
+            return;
+        }
+
         // Load new data from file
         final RandomAccessFileInputStream in = new RandomAccessFileInputStream(file, "rw");
         try {
             final FileLock lock = in.lock(tryLockMax, tryWaitMillis);
-            try {
-                // TODO Anyone knows a better/faster solution?
-                // Just checking "file.lastModified()" failed here on a
-                // irregular base so always merging seems to be the best
-                // alternative...
-                merge(in);
+            try (final RandomAccessFile journal = openJournal(false)) {
+                merge(in, journal);
             } finally {
                 lock.release();
             }
@@ -143,6 +195,29 @@ public class PropertiesFile {
         loaded = true;
     }
 
+    /**
+     * Merges the file content only if it changed since the last merge or save. Just checking "file.lastModified()" failed on a irregular
+     * base, so a fingerprint including size and checksum of the content is compared. The caller must hold the file lock.
+     * 
+     * @param in
+     *            Stream of the locked file.
+     * 
+     * @throws MergeException
+     *             A problem occurred when merging the properties in memory and from disk.
+     * @throws IOException
+     *             Error reading the file.
+     */
+    private void mergeIfChanged(final RandomAccessFileInputStream in) throws MergeException, IOException {
+        final FileFingerprint current = FileFingerprint.of(file, in.getChannel());
+        if (!current.equals(fingerprint)) {
+            fingerprint = null;
+            // The journal has to be replayed on top of the changed file
+            journalPosition = 0;
+            merge(in);
+            fingerprint = current;
+        }
+    }
+
     private void merge(final RandomAccessFileInputStream in) throws MergeException, IOException {
 
         final List<MergeException.Problem> problems = new ArrayList<>();
@@ -150,45 +225,189 @@ public class PropertiesFile {
         final List<Property> currentProps = new ArrayList<>();
         load(in, currentProps, encoding);
 
+        final Set<String> currentKeys = new HashSet<>();
         for (int i = 0; i < currentProps.size(); i++) {
-            final Property currentProp = currentProps.get(i);
-            final int idx = props.indexOf(currentProp);
-            if (idx == -1) {
-                // New property from file
-                props.add(currentProp);
-            } else {
-                final Property prop = props.get(idx);
-                if (prop.hasChanged()) {
-                    if (prop.isNew()) {
-                        // New property
-                        if (!prop.getValue().equals(currentProp.getValue())) {
-                            problems.add(
-                                    new MergeException.Problem("Same new property in file with a different value!", prop, currentProp));
+            mergeProperty(currentProps.get(i), problems);
+            currentKeys.add(currentProps.get(i).getKey());
+        }
+        // Removed by someone else
+        props.values().removeIf(prop -> !prop.hasChanged() && !currentKeys.contains(prop.getKey()));
+
+        if (!problems.isEmpty()) {
+            throw new MergeException(file, problems);
+        }
+
+    }
+
+    private void mergeProperty(final Property currentProp, final List<MergeException.Problem> problems) {
+        final Property prop = props.get(currentProp.getKey());
+        if (prop == null) {
+            // New property from file
+            props.put(currentProp.getKey(), currentProp);
+        } else {
+            if (prop.hasChanged()) {
+                if (prop.isNew()) {
+                    // New property
+                    if (!prop.getValue().equals(currentProp.getValue())) {
+                        problems.add(new MergeException.Problem("Same new property in file with a different value!", prop, currentProp));
+                    }
+                } else {
+                    if (prop.isDeleted()) {
+                        // Deleted property
+                        if (!prop.getInitialValue().equals(currentProp.getValue())) {
+                            problems.add(new MergeException.Problem("Modified property in file we want to delete!", prop, currentProp));
                         }
                     } else {
-                        if (prop.isDeleted()) {
-                            // Deleted property
-                            if (!prop.getInitialValue().equals(currentProp.getValue())) {
-                                problems.add(new MergeException.Problem("Modified property in file we want to delete!", prop, currentProp));
-                            }
-                        } else {
-                            // Changed property
-                            if (!prop.getInitialValue().equals(currentProp.getValue())) {
-                                problems.add(new MergeException.Problem("Same property modified in file but different value!", prop,
-                                        currentProp));
-                            }
+                        // Changed property
+                        if (!prop.getInitialValue().equals(currentProp.getValue())) {
+                            problems.add(
+                                    new MergeException.Problem("Same property modified in file but different value!", prop, currentProp));
                         }
                     }
-                } else {
-                    // No change, simply replace with file
-                    props.set(idx, currentProp);
                 }
+            } else {
+                // No change, simply replace with file (keeps the position)
+                props.put(currentProp.getKey(), currentProp);
             }
         }
+    }
+
+    private void mergeRemovedProperty(final String key, final List<MergeException.Problem> problems) {
+        final Property prop = props.get(key);
+        if (prop != null) {
+            if (!prop.hasChanged()) {
+                props.remove(key);
+            } else if (!prop.isNew() && !prop.isDeleted()) {
+                problems.add(
+                        new MergeException.Problem("Property removed in file we want to modify!", prop, new Property(key, null, null)));
+            }
+        }
+    }
 
+    /**
+     * Merges the file and the journal. The caller must hold the file lock.
+     * 
+     * @param in
+     *            Stream of the locked file.
+     * @param journal
+     *            Journal or <code>null</code> if there is no journal.
+     * 
+     * @throws MergeException
+     *             A problem occurred when merging the properties in memory and from disk.
+     * @throws IOException
+     *             Error reading the file or the journal.
+     */
+    private void merge(final RandomAccessFileInputStream in, final RandomAccessFile journal) throws MergeException, IOException {
+        final String id = readJournalId(journal);
+        if (!Objects.equals(id, journalId)) {
+            // The journal was compacted or created by someone else since our last merge
+            fingerprint = null;
+            journalId = id;
+        }
+        mergeIfChanged(in);
+        if (id != null) {
+            mergeJournal(journal);
+        }
+    }
+
+    private void mergeJournal(final RandomAccessFile journal) throws MergeException, IOException {
+
+        final long start = Math.max(journalPosition, JOURNAL_HEADER_LENGTH);
+        final long length = journal.length();
+        if (length <= start) {
+            return;
+        }
+        final byte[] buf = new byte[(int) (length - start)];
+        journal.seek(start);
+        journal.readFully(buf);
+        final String text = new String(buf, encoding);
+
+        // A record without line feed at the end was not written completely and is ignored
+        final int end = text.lastIndexOf('\n') + 1;
+        final List<MergeException.Problem> problems = new ArrayList<>();
+        int p = 0;
+        while (p < end) {
+            final int lf = text.indexOf('\n', p);
+            final String record = text.substring(p, lf);
+            if (record.startsWith("+")) {
+                final int eq = record.indexOf('=');
+                if (eq > -1) {
+                    final String value = record.substring(eq + 1);
+                    mergeProperty(new Property(record.substring(1, eq), value, value), problems);
+                }
+            } else if (record.startsWith("-")) {
+                mergeRemovedProperty(record.substring(1), problems);
+            }
+            p = lf + 1;
+        }
         if (!problems.isEmpty()) {
             throw new MergeException(file, problems);
         }
+        journalPosition = start + text.substring(0, end).getBytes(encoding).length;
+
+    }
+
+    private RandomAccessFile openJournal(final boolean create) throws IOException {
+        if (!create && !journalFile.exists()) {
+            return null;
+        }
+        return new RandomAccessFile(journalFile, "rw");
+    }
+
+    private static String readJournalId(final RandomAccessFile journal) throws IOException {
+        if ((journal == null) || (journal.length() < JOURNAL_HEADER_LENGTH)) {
+            return null;
+        }
+        final byte[] header = new byte[JOURNAL_HEADER_LENGTH];
+        journal.seek(0);
+        journal.readFully(header);
+        if ((header[0] != '#') || (header[JOURNAL_HEADER_LENGTH - 1] != '\n')) {
+            return null;
+        }
+        return new String(header, 1, JOURNAL_HEADER_LENGTH - 2, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Appends all changed properties to the journal and marks them as unchanged. The caller must hold the file lock and the journal must be
+     * merged before.
+     * 
+     * @param journal
+     *            Journal to append to.
+     * 
+     * @throws IOException
+     *             Error writing the journal.
+     */
+    private void appendJournal(final RandomAccessFile journal) throws IOException {
+
+        final StringBuilder sb = new StringBuilder();
+        for (final Map.Entry<String, Property> entry : props.entrySet()) {
+            final Property prop = entry.getValue();
+            if (prop.hasChanged()) {
+                if (prop.isDeleted()) {
+                    sb.append('-').append(prop.getKey()).append('\n');
+                } else {
+                    sb.append('+').append(prop.toKeyValue()).append('\n');
+                    entry.setValue(new Property(prop.getKey(), prop.getValue(), prop.getValue()));
+                }
+            }
+        }
+        if (sb.length() == 0) {
+            return;
+        }
+
+        if (journalId == null) {
+            journalId = UUID.randomUUID().toString().replace("-", "");
+            journal.setLength(0);
+            journal.write(("#" + journalId + "\n").getBytes(StandardCharsets.US_ASCII));
+            journalPosition = JOURNAL_HEADER_LENGTH;
+        }
+        final byte[] records = sb.toString().getBytes(encoding);
+        // Removes an incomplete record at the end
+        journal.setLength(journalPosition);
+        journal.seek(journalPosition);
+        journal.write(records);
+        journal.getChannel().force(false);
+        journalPosition = journalPosition + records.length;
 
     }
 
@@ -245,68 +464,161 @@ public class PropertiesFile {
      */
     public final void save(final String[] comments, final boolean sortByKey) throws IOException, MergeException, LockingFailedException {
 
-        try (final RandomAccessFileOutputStream out = new RandomAccessFileOutputStream(file, "rw");
-                final Writer writer = new OutputStreamWriter(new BufferedOutputStream(out), encoding)) {
-            try (final FileLock lock = out.lock(tryLockMax, tryWaitMillis)) {
-
-                // TODO Anyone knows a better/faster solution?
-                // Just checking "file.lastModified()" failed here on a
-                // irregular base so always merging seems to be the best
-                // alternative...
-                merge(new RandomAccessFileInputStream(out));
-                out.seek(0);
-                out.resetCounter();
-
-                // Sort?
-                if (sortByKey) {
-                    Collections.sort(props);
+        if (atomicSave) {
+            try (final RandomAccessFileOutputStream lockOut = new RandomAccessFileOutputStream(lockFile, "rw")) {
+                final FileLock lock = lockOut.lock(tryLockMax, tryWaitMillis);
+                try (final RandomAccessFile journal = openJournal(journalMode)) {
+                    try (final RandomAccessFileInputStream in = new RandomAccessFileInputStream(file, "rw")) {
+                        merge(in, journal);
+                    }
+                    if (appendJournalOrRewrite(journal)) {
+                        replace(comments, sortByKey);
+                        clearJournal(journal);
+                    }
+                } finally {
+                    lock.release();
+                }
+            }
+        } else {
+            try (final RandomAccessFileOutputStream out = new RandomAccessFileOutputStream(file, "rw")) {
+                final FileLock lock = out.lock(tryLockMax, tryWaitMillis);
+                try (final RandomAccessFile journal = openJournal(journalMode)) {
+                    merge(new RandomAccessFileInputStream(out), journal);
+                    if (appendJournalOrRewrite(journal)) {
+                        write(out, file, comments, sortByKey);
+                        clearJournal(journal);
+                    }
+                } finally {
+                    lock.release();
                 }
+            }
+        }
 
-                // Write the data to disk
-                final String lf = System.getProperty("line.separator");
+        // Remove all deleted entries
+        props.values().removeIf(Property::isDeleted);
 
-                // Write comment
-                for (int i = 0; i < comments.length; i++) {
-                    writer.write("# ");
-                    writer.write(comments[i]);
-                    writer.write(lf);
-                }
+    }
 
-                // Save all values
-                for (int i = 0; i < props.size(); i++) {
-                    final Property prop = props.get(i);
-                    if (!prop.isDeleted()) {
-                        writer.write(prop.toKeyValue());
-                        writer.write(lf);
-                        // Replace the property with the new status
-                        props.set(i, new Property(prop.getKey(), prop.getValue(), prop.getValue()));
-                    }
-                }
-                writer.flush();
-                out.truncate();
-                out.flush();
+    /**
+     * Appends the changes to the journal if journal mode is enabled.
+     * 
+     * @param journal
+     *            Journal or <code>null</code> if there is no journal.
+     * 
+     * @return If the whole file has to be written <code>true</code> else <code>false</code>.
+     * 
+     * @throws IOException
+     *             Error writing the journal.
+     */
+    private boolean appendJournalOrRewrite(final RandomAccessFile journal) throws IOException {
+        if (!journalMode) {
+            return true;
+        }
+        appendJournal(journal);
+        return journalPosition > journalMaxSize;
+    }
+
+    private void clearJournal(final RandomAccessFile journal) throws IOException {
+        if (journal != null) {
+            // File contains everything now
+            journal.setLength(0);
+            journalId = null;
+            journalPosition = 0;
+        }
+    }
 
+    /**
+     * Writes a temporary file in the same directory and renames it to the properties file.
+     * 
+     * @param comments
+     *            Comments to prepend.
+     * @param sortByKey
+     *            Sort the properties by key before saving?
+     * 
+     * @throws IOException
+     *             Error writing or renaming the file.
+     */
+    private void replace(final String[] comments, final boolean sortByKey) throws IOException {
+        final File dir = file.getAbsoluteFile().getParentFile();
+        final File temp = File.createTempFile("." + file.getName() + ".", ".tmp", dir);
+        try {
+            try (final RandomAccessFileOutputStream out = new RandomAccessFileOutputStream(temp, "rw")) {
+                write(out, temp, comments, sortByKey);
             }
+            // Renaming keeps the modification time and file key of the fingerprint
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException | RuntimeException ex) {
+            fingerprint = null;
+            temp.delete();
+            throw ex;
+        }
+        try (final FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            // Makes the rename durable
+            channel.force(true);
+        } catch (final IOException ex) { // NOSONAR Not supported on all platforms
+            // Ignore
         }
+    }
 
-        // Remove all deleted entries
-        for (int i = props.size() - 1; i >= 0; i--) {
-            final Property prop = props.get(i);
-            if (prop.isDeleted()) {
-                props.remove(i);
+    private void write(final RandomAccessFileOutputStream out, final File written, final String[] comments, final boolean sortByKey)
+            throws IOException {
+
+        final CRC32 crc = new CRC32();
+        final Writer writer = new OutputStreamWriter(new BufferedOutputStream(new CheckedOutputStream(out, crc) {
+            @Override
+            public void flush() {
+                // The file is synced only once after truncating it
             }
+        }), encoding);
+
+        fingerprint = null;
+        out.seek(0);
+        out.resetCounter();
+
+        // Sort?
+        if (sortByKey) {
+            sort();
         }
 
-    }
+        // Write the data to disk
+        final String lf = System.getProperty("line.separator");
 
-    private Property find(final String key) {
-        for (int i = 0; i < props.size(); i++) {
-            final Property prop = props.get(i);
-            if (prop.getKey().equals(key)) {
-                return prop;
+        // Write comment
+        for (int i = 0; i < comments.length; i++) {
+            writer.write("# ");
+            writer.write(comments[i]);
+            writer.write(lf);
+        }
+
+        // Save all values
+        for (final Map.Entry<String, Property> entry : props.entrySet()) {
+            final Property prop = entry.getValue();
+            if (prop.getValue() != null) {
+                writer.write(prop.toKeyValue());
+                writer.write(lf);
+                // Replace the property with the new status
+                entry.setValue(new Property(prop.getKey(), prop.getValue(), prop.getValue()));
             }
         }
-        return null;
+        writer.flush();
+        out.truncate();
+        out.flush();
+        fingerprint = FileFingerprint.withChecksum(written, out.getCounter(), crc.getValue());
+        // We don't close the writer because this will be done by the caller
+
+    }
+
+    private void sort() {
+        final List<Property> list = new ArrayList<>(props.values());
+        Collections.sort(list);
+        props.clear();
+        for (final Property prop : list) {
+            props.put(prop.getKey(), prop);
+        }
+    }
+
+    private Property find(final String key) {
+        return props.get(key);
     }
 
     /**
@@ -353,7 +665,7 @@ public class PropertiesFile {
     public final void put(final String key, final String value) {
         final Property prop = find(key);
         if (prop == null) {
-            props.add(new Property(key, null, value));
+            props.put(key, new Property(key, null, value));
         } else {
             prop.setValue(value);
         }
@@ -361,7 +673,8 @@ public class PropertiesFile {
 
     /**
      * Remove the property with the given key. The internal property object is not deleted itself but it's value is set to <code>null</code>
-     * and the method <code>isDeleted()</code> will return <code>true</code> .
+     * and the method <code>isDeleted()</code> will return <code>true</code> . A property that was never loaded or saved is dropped
+     * completely as there is nothing to delete in the file.
      * 
      * @param key
      *            Key for the property to remove.
@@ -369,7 +682,11 @@ public class PropertiesFile {
     public final void remove(final String key) {
         final Property prop = find(key);
         if (prop != null) {
-            prop.setValue(null);
+            if (prop.getInitialValue() == null) {
+                props.remove(key);
+            } else {
+                prop.setValue(null);
+            }
         }
     }
 
@@ -437,7 +754,7 @@ public class PropertiesFile {
      */
     public final Iterator<String> keyIterator() {
         return new Iterator<String>() {
-            private final Iterator<Property> it = props.iterator();
+            private final Iterator<Property> it = props.values().iterator();
 
             @Override
             public boolean hasNext() {
@@ -453,6 +770,7 @@ public class PropertiesFile {
             @Override
             public void remove() {
                 it.remove();
+                fingerprint = null;
             }
         };
     }
@@ -464,9 +782,9 @@ public class PropertiesFile {
      */
     public final Properties toProperties() {
         final Properties retVal = new Properties();
-        for (int i = 0; i < props.size(); i++) {
-            final Property prop = props.get(i);
-            if (!prop.isDeleted()) {
+        for (final Property prop : props.values()) {
+            // A new property that was removed again is not marked as deleted but has no value
+            if (prop.getValue() != null) {
                 retVal.put(prop.getKey(), prop.getValue());
             }
         }
@@ -511,6 +829,82 @@ public class PropertiesFile {
         this.tryWaitMillis = tryWaitMillis;
     }
 
+    /**
+     * Returns if a save only appends the changes to the journal.
+     * 
+     * @return If journal mode is enabled <code>true</code> else <code>false</code> (default).
+     */
+    public final boolean isJournalMode() {
+        return journalMode;
+    }
+
+    /**
+     * Sets if a save only appends the changes to the journal. Comments and sorting are only applied when the journal is compacted into the
+     * properties file.
+     * 
+     * @param journalMode
+     *            Enable journal mode <code>true</code> or disable it <code>false</code> (default).
+     */
+    public final void setJournalMode(final boolean journalMode) {
+        this.journalMode = journalMode;
+    }
+
+    /**
+     * Returns the size of the journal that triggers a compaction into the properties file on save.
+     * 
+     * @return Size in bytes (default=1 MB).
+     */
+    public final long getJournalMaxSize() {
+        return journalMaxSize;
+    }
+
+    /**
+     * Sets the size of the journal that triggers a compaction into the properties file on save.
+     * 
+     * @param journalMaxSize
+     *            Size in bytes (default=1 MB).
+     */
+    public final void setJournalMaxSize(final long journalMaxSize) {
+        this.journalMaxSize = journalMaxSize;
+    }
+
+    /**
+     * Returns if the file is saved by renaming a temporary file instead of overwriting it.
+     * 
+     * @return If atomic save is enabled <code>true</code> else <code>false</code> (default).
+     */
+    public final boolean isAtomicSave() {
+        return atomicSave;
+    }
+
+    /**
+     * Sets if the file is saved by renaming a temporary file instead of overwriting it.
+     * 
+     * @param atomicSave
+     *            Enable atomic save <code>true</code> or disable it <code>false</code> (default).
+     */
+    public final void setAtomicSave(final boolean atomicSave) {
+        this.atomicSave = atomicSave;
+    }
+
+    /**
+     * Returns the file that is locked if atomic save is enabled. It only exists if atomic save was used for this properties file.
+     * 
+     * @return Lock file reference.
+     */
+    public final File getLockFile() {
+        return lockFile;
+    }
+
+    /**
+     * Returns the journal file. It only exists if the journal mode was used for this properties file.
+     * 
+     * @return Journal file reference.
+     */
+    public final File getJournalFile() {
+        return journalFile;
+    }
+
     /**
      * Determines if the underlying file already exists.
      * 
@@ -521,12 +915,16 @@ public class PropertiesFile {
     }
 
     /**
-     * Tries to delete the underlying file. The properties in memory remain unchanged. If you want also to remove the properties in memory
-     * call <code>clear()</code>.
+     * Tries to delete the underlying file and the journal. The properties in memory remain unchanged. If you want also to remove the
+     * properties in memory call <code>clear()</code>.
      * 
      * @return If the files was deleted <code>true</code> else <code>false</code>
      */
     public final boolean delete() {
+        fingerprint = null;
+        journalId = null;
+        journalPosition = 0;
+        journalFile.delete();
         return file.delete();
     }
 
@@ -18,28 +18,59 @@
 package org.fuin.utils4j;
 
 import java.io.File;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.prefs.AbstractPreferences;
 import java.util.prefs.BackingStoreException;
+import java.util.prefs.PreferenceChangeEvent;
+import java.util.prefs.PreferenceChangeListener;
 
 /**
- * A directory and <code>PropertiesFile</code> based <code>Preferences</code> API implementation.
+ * A directory and <code>PropertiesFile</code> based <code>Preferences</code> API implementation. If a {@link PreferencesFlusher} is set,
+ * <code>flush()</code> only queues the nodes and they are written in the background. The names of the child nodes are cached until the
+ * modification time or - on Unix - the link count of the directory changes. The link count includes the number of sub directories, so a
+ * child created within the resolution of the modification time is found as well. A whole subtree can be loaded with
+ * {@link #prefetch(int)}. If a {@link PreferencesWatcher} is set, nodes with a <code>PreferenceChangeListener</code> are reloaded as soon
+ * as another process changes their file.
  */
 public final class PropertiesFilePreferences extends AbstractPreferences {
 
     /** Filename the properties of this node are stored under. */
     public static final String FILENAME = "preferences.properties";
 
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** Directory attributes that change when a child is created or removed. */
+    private static final String STAMP_ATTRIBUTES = FileSystems.getDefault().supportedFileAttributeViews().contains("unix")
+            ? "unix:lastModifiedTime,nlink" : "lastModifiedTime";
+
     private final File dir;
 
     private final PropertiesFile file;
 
+    private final PreferencesFlusher flusher;
+
+    private final PreferencesWatcher watcher;
+
+    /** Listeners informed about changes made by other processes - Only used with a watcher. */
+    private final List<PreferenceChangeListener> listeners;
+
     private boolean removed;
 
+    /** Cached names of the child directories or <code>null</code> if not listed yet. */
+    private String[] childrenNames;
+
+    /** Attributes of the directory when the child names were listed. */
+    private Map<String, Object> childrenStamp;
+
     /**
      * Constructor with directory. This is constructing the "root" node.
      * 
@@ -47,7 +78,34 @@ public final class PropertiesFilePreferences extends AbstractPreferences {
      *            Directory where the preferences are stored.
      */
     public PropertiesFilePreferences(final File dir) {
-        this(null, dir, "");
+        this(dir, null);
+    }
+
+    /**
+     * Constructor with directory and flusher. This is constructing the "root" node. All child nodes use the same flusher.
+     * 
+     * @param dir
+     *            Directory where the preferences are stored.
+     * @param flusher
+     *            Writes flushed nodes in the background or <code>null</code> to write them directly on <code>flush()</code>.
+     */
+    public PropertiesFilePreferences(final File dir, final PreferencesFlusher flusher) {
+        this(dir, flusher, null);
+    }
+
+    /**
+     * Constructor with directory, flusher and watcher. This is constructing the "root" node. All child nodes use the same flusher and
+     * watcher.
+     * 
+     * @param dir
+     *            Directory where the preferences are stored.
+     * @param flusher
+     *            Writes flushed nodes in the background or <code>null</code> to write them directly on <code>flush()</code>.
+     * @param watcher
+     *            Reloads nodes changed by other processes or <code>null</code> to see changes only after <code>sync()</code>.
+     */
+    public PropertiesFilePreferences(final File dir, final PreferencesFlusher flusher, final PreferencesWatcher watcher) {
+        this(null, dir, "", flusher, watcher);
     }
 
     /**
@@ -59,7 +117,7 @@ public final class PropertiesFilePreferences extends AbstractPreferences {
      *            Directory where the preferences are stored.
      */
     public PropertiesFilePreferences(final PropertiesFilePreferences parent, final File dir) {
-        this(parent, dir, dir.getName());
+        this(parent, dir, dir.getName(), parent == null ? null : parent.flusher, parent == null ? null : parent.watcher);
     }
 
     /**
@@ -71,23 +129,35 @@ public final class PropertiesFilePreferences extends AbstractPreferences {
      *            Directory where the preferences are stored.
      * @param name
      *            Name of the node.
+     * @param flusher
+     *            Writes flushed nodes in the background or <code>null</code>.
+     * @param watcher
+     *            Reloads nodes changed by other processes or <code>null</code>.
      */
-    private PropertiesFilePreferences(final PropertiesFilePreferences parent, final File dir, final String name) {
+    private PropertiesFilePreferences(final PropertiesFilePreferences parent, final File dir, final String name,
+            final PreferencesFlusher flusher, final PreferencesWatcher watcher) {
         super(parent, name);
         this.dir = dir;
         this.file = new PropertiesFile(new File(dir, FILENAME));
+        this.flusher = flusher;
+        this.watcher = watcher;
+        this.listeners = new CopyOnWriteArrayList<>();
         this.removed = false;
     }
 
     @Override
     protected final AbstractPreferences childSpi(final String name) {
         final File childDir = new File(dir, name);
-        return new PropertiesFilePreferences(this, childDir, name);
+        return new PropertiesFilePreferences(this, childDir, name, flusher, watcher);
     }
 
     @Override
     protected final String[] childrenNamesSpi() throws BackingStoreException {
         try {
+            final Map<String, Object> stamp = directoryStamp();
+            if ((childrenNames != null) && (stamp != null) && stamp.equals(childrenStamp)) {
+                return childrenNames.clone();
+            }
             final List<String> childs = new ArrayList<>();
             final File[] files = dir.listFiles();
             if (files != null) {
@@ -97,14 +167,70 @@ public final class PropertiesFilePreferences extends AbstractPreferences {
                     }
                 }
             }
-            return childs.toArray(new String[0]);
+            childrenNames = childs.toArray(new String[0]);
+            childrenStamp = stamp;
+            return childrenNames.clone();
         } catch (final RuntimeException ex) {
             throw new BackingStoreException(ex);
         }
     }
 
+    private Map<String, Object> directoryStamp() {
+        try {
+            return Files.readAttributes(dir.toPath(), STAMP_ATTRIBUTES);
+        } catch (final IOException ex) {
+            // Directory does not exist (yet)
+            return null;
+        }
+    }
+
+    /**
+     * Loads this node and all nodes below it up to a given depth in one traversal of the directory tree. Child names found on the way are
+     * cached, so walking the subtree afterwards does not access the file system again.
+     * 
+     * @param depth
+     *            Number of levels below this node to load - Zero only loads this node.
+     * 
+     * @throws BackingStoreException
+     *             Loading a node failed.
+     */
+    public final void prefetch(final int depth) throws BackingStoreException {
+        final String[] names;
+        synchronized (lock) {
+            if (isRemoved()) {
+                throw new IllegalStateException("Node has been removed.");
+            }
+            load();
+            if (depth <= 0) {
+                return;
+            }
+            names = childrenNames();
+        }
+        for (final String name : names) {
+            ((PropertiesFilePreferences) node(name)).prefetch(depth - 1);
+        }
+    }
+
     @Override
     protected void flushSpi() throws BackingStoreException {
+        if ((flusher == null) || !flusher.schedule(this)) {
+            writeSpi();
+        }
+    }
+
+    /**
+     * Writes the node to disk while holding the node's lock.
+     * 
+     * @throws BackingStoreException
+     *             Writing the node failed.
+     */
+    final void write() throws BackingStoreException {
+        synchronized (lock) {
+            writeSpi();
+        }
+    }
+
+    private void writeSpi() throws BackingStoreException {
         try {
             if (removed) {
                 if (!file.delete()) {
@@ -114,9 +240,8 @@ public final class PropertiesFilePreferences extends AbstractPreferences {
                     throw new IllegalStateException("Was not able to delete directory: " + dir);
                 }
             } else {
-                final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
                 final String[] comments = new String[] { "DO NOT EDIT!", "Created by " + this.getClass().getName(),
-                        sdf.format(new Date()) };
+                        DATE_TIME_FORMAT.format(LocalDateTime.now()) };
                 mkdirIfNecessary();
                 file.save(comments, true);
             }
@@ -151,6 +276,10 @@ public final class PropertiesFilePreferences extends AbstractPreferences {
 
     @Override
     protected final void removeNodeSpi() throws BackingStoreException {
+        if (watcher != null) {
+            watcher.unwatch(this);
+            listeners.clear();
+        }
         file.clear();
         removed = true;
     }
@@ -162,17 +291,30 @@ public final class PropertiesFilePreferences extends AbstractPreferences {
     }
 
     private void loadIfNecessary() {
-        if (!file.isLoaded()) {
+        try {
+            load();
+        } catch (final BackingStoreException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private void load() throws BackingStoreException {
+        // A node that was never loaded has no changes, so a queued write can be ignored here
+        if (!file.isLoaded() && file.exists()) {
             try {
-                syncSpi();
-            } catch (final BackingStoreException ex) {
-                throw new RuntimeException(ex);
+                file.load();
+            } catch (final Exception ex) {
+                throw new BackingStoreException(ex);
             }
         }
     }
 
     @Override
     protected final void syncSpi() throws BackingStoreException {
+        if ((flusher != null) && flusher.unschedule(this)) {
+            // Write queued changes before reading the file
+            writeSpi();
+        }
         if (dir.exists() && file.exists()) {
             try {
                 file.load();
@@ -182,6 +324,71 @@ public final class PropertiesFilePreferences extends AbstractPreferences {
         }
     }
 
+    @Override
+    public final void addPreferenceChangeListener(final PreferenceChangeListener pcl) {
+        super.addPreferenceChangeListener(pcl);
+        if (watcher != null) {
+            synchronized (lock) {
+                listeners.add(pcl);
+                if (listeners.size() == 1) {
+                    // Events are created by comparing the loaded values with the reloaded ones
+                    loadIfNecessary();
+                    try {
+                        watcher.watch(this, dir);
+                    } catch (final IOException ex) {
+                        throw new RuntimeException("Failed to watch directory: " + dir, ex);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public final void removePreferenceChangeListener(final PreferenceChangeListener pcl) {
+        super.removePreferenceChangeListener(pcl);
+        if (watcher != null) {
+            synchronized (lock) {
+                if (listeners.remove(pcl) && listeners.isEmpty()) {
+                    watcher.unwatch(this);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reloads the node and informs the listeners about all changed values. Called by the watcher if the file was changed.
+     * 
+     * @throws BackingStoreException
+     *             Reloading the node failed.
+     */
+    final void reload() throws BackingStoreException {
+        final List<PreferenceChangeEvent> events = new ArrayList<>();
+        synchronized (lock) {
+            if (isRemoved()) {
+                return;
+            }
+            final Properties before = file.toProperties();
+            syncSpi();
+            final Properties after = file.toProperties();
+            for (final String key : after.stringPropertyNames()) {
+                final String value = after.getProperty(key);
+                if (!value.equals(before.getProperty(key))) {
+                    events.add(new PreferenceChangeEvent(this, key, value));
+                }
+            }
+            for (final String key : before.stringPropertyNames()) {
+                if (!after.containsKey(key)) {
+                    events.add(new PreferenceChangeEvent(this, key, null));
+                }
+            }
+        }
+        for (final PreferenceChangeEvent event : events) {
+            for (final PreferenceChangeListener listener : listeners) {
+                listener.preferenceChange(event);
+            }
+        }
+    }
+
     /**
      * Returns a copy of all properties.
      * 
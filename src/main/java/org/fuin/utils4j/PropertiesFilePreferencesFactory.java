@@ -18,6 +18,7 @@
 package org.fuin.utils4j;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.prefs.BackingStoreException;
 import java.util.prefs.Preferences;
 import java.util.prefs.PreferencesFactory;
@@ -37,10 +38,37 @@ public final class PropertiesFilePreferencesFactory implements PreferencesFactor
      */
     public static final String USER_PREF_DIR = "PropertiesFilePreferences.UserDir";
 
+    /**
+     * System property key used containing the milliseconds a flushed node is queued before it's written in the background. If it's not
+     * set, nodes are written directly on flush.
+     */
+    public static final String FLUSH_DELAY_MILLIS = "PropertiesFilePreferences.FlushDelayMillis";
+
+    /**
+     * System property key used containing the number of levels below the root that are loaded with a single traversal when the root is
+     * created. If it's not set, nodes are loaded on first access.
+     */
+    public static final String PREFETCH_DEPTH = "PropertiesFilePreferences.PrefetchDepth";
+
+    /**
+     * System property key used to enable reloading nodes changed by other processes ("true" or "false"). If it's enabled, nodes with a
+     * <code>PreferenceChangeListener</code> are observed with a {@link PreferencesWatcher}.
+     */
+    public static final String WATCH = "PropertiesFilePreferences.Watch";
+
+    /** Number of queued nodes that are written without waiting for the flush delay. */
+    private static final int MAX_BATCH_SIZE = 100;
+
     private final String systemPrefDir;
 
     private final String userPrefDir;
 
+    private final PreferencesFlusher flusher;
+
+    private final int prefetchDepth;
+
+    private final PreferencesWatcher watcher;
+
     private PropertiesFilePreferences systemRoot = null;
 
     private PropertiesFilePreferences userRoot = null;
@@ -49,7 +77,8 @@ public final class PropertiesFilePreferencesFactory implements PreferencesFactor
      * Default constructor.
      */
     public PropertiesFilePreferencesFactory() {
-        this(System.getProperty(SYSTEM_PREF_DIR), System.getProperty(USER_PREF_DIR));
+        this(System.getProperty(SYSTEM_PREF_DIR), System.getProperty(USER_PREF_DIR), createFlusher(System.getProperty(FLUSH_DELAY_MILLIS)),
+                Integer.parseInt(System.getProperty(PREFETCH_DEPTH, "-1").trim()), createWatcher(Boolean.getBoolean(WATCH)));
     }
 
     /**
@@ -61,21 +90,103 @@ public final class PropertiesFilePreferencesFactory implements PreferencesFactor
      *            Path and name of the "user" preferences directory.
      */
     public PropertiesFilePreferencesFactory(final String systemPrefDir, final String userPrefDir) {
+        this(systemPrefDir, userPrefDir, null);
+    }
+
+    /**
+     * Constructor with path and filenames of the system and user root directories and a flusher.
+     * 
+     * @param systemPrefDir
+     *            Path and name of the "system" preferences directory.
+     * @param userPrefDir
+     *            Path and name of the "user" preferences directory.
+     * @param flusher
+     *            Writes flushed nodes in the background or <code>null</code> to write them directly on flush. All queued nodes are written
+     *            at shutdown.
+     */
+    public PropertiesFilePreferencesFactory(final String systemPrefDir, final String userPrefDir, final PreferencesFlusher flusher) {
+        this(systemPrefDir, userPrefDir, flusher, -1);
+    }
+
+    /**
+     * Constructor with path and filenames of the system and user root directories, a flusher and the prefetch depth.
+     * 
+     * @param systemPrefDir
+     *            Path and name of the "system" preferences directory.
+     * @param userPrefDir
+     *            Path and name of the "user" preferences directory.
+     * @param flusher
+     *            Writes flushed nodes in the background or <code>null</code> to write them directly on flush. All queued nodes are written
+     *            at shutdown.
+     * @param prefetchDepth
+     *            Number of levels below a root that are loaded when the root is created or a negative value to load nodes on first access.
+     */
+    public PropertiesFilePreferencesFactory(final String systemPrefDir, final String userPrefDir, final PreferencesFlusher flusher,
+            final int prefetchDepth) {
+        this(systemPrefDir, userPrefDir, flusher, prefetchDepth, null);
+    }
+
+    /**
+     * Constructor with all data.
+     * 
+     * @param systemPrefDir
+     *            Path and name of the "system" preferences directory.
+     * @param userPrefDir
+     *            Path and name of the "user" preferences directory.
+     * @param flusher
+     *            Writes flushed nodes in the background or <code>null</code> to write them directly on flush. All queued nodes are written
+     *            at shutdown.
+     * @param prefetchDepth
+     *            Number of levels below a root that are loaded when the root is created or a negative value to load nodes on first access.
+     * @param watcher
+     *            Reloads nodes changed by other processes or <code>null</code> to see changes only after <code>sync()</code>. The watcher
+     *            is closed at shutdown.
+     */
+    public PropertiesFilePreferencesFactory(final String systemPrefDir, final String userPrefDir, final PreferencesFlusher flusher,
+            final int prefetchDepth, final PreferencesWatcher watcher) {
         super();
         this.systemPrefDir = systemPrefDir;
         this.userPrefDir = userPrefDir;
+        this.flusher = flusher;
+        this.prefetchDepth = prefetchDepth;
+        this.watcher = watcher;
+    }
+
+    private static PreferencesFlusher createFlusher(final String delayMillis) {
+        if (delayMillis == null) {
+            return null;
+        }
+        return new PreferencesFlusher(Long.parseLong(delayMillis.trim()), MAX_BATCH_SIZE);
+    }
+
+    private static PreferencesWatcher createWatcher(final boolean watch) {
+        if (!watch) {
+            return null;
+        }
+        try {
+            return new PreferencesWatcher();
+        } catch (final IOException ex) {
+            throw new RuntimeException("Failed to create preferences watcher", ex);
+        }
     }
 
     @Override
     public final synchronized Preferences systemRoot() {
         if (systemRoot == null) {
-            systemRoot = new PropertiesFilePreferences(getValidDir(SYSTEM_PREF_DIR, systemPrefDir));
+            systemRoot = new PropertiesFilePreferences(getValidDir(SYSTEM_PREF_DIR, systemPrefDir), flusher, watcher);
+            prefetch(systemRoot);
             // Always sync at shutdown
             Runtime.getRuntime().addShutdownHook(new Thread() {
                 @Override
                 public void run() {
                     try {
                         systemRoot.flush();
+                        if (flusher != null) {
+                            flusher.close();
+                        }
+                        if (watcher != null) {
+                            watcher.close();
+                        }
                     } catch (final BackingStoreException ex) {
                         System.err.println("Failed to save 'systemRoot' preferences!");
                         ex.printStackTrace(System.err);
@@ -89,13 +200,20 @@ public final class PropertiesFilePreferencesFactory implements PreferencesFactor
     @Override
     public final synchronized Preferences userRoot() {
         if (userRoot == null) {
-            userRoot = new PropertiesFilePreferences(getValidDir(USER_PREF_DIR, userPrefDir));
+            userRoot = new PropertiesFilePreferences(getValidDir(USER_PREF_DIR, userPrefDir), flusher, watcher);
+            prefetch(userRoot);
             // Always sync at shutdown
             Runtime.getRuntime().addShutdownHook(new Thread() {
                 @Override
                 public void run() {
                     try {
                         userRoot.flush();
+                        if (flusher != null) {
+                            flusher.close();
+                        }
+                        if (watcher != null) {
+                            watcher.close();
+                        }
                     } catch (final BackingStoreException ex) {
                         System.err.println("Failed to save 'userRoot' preferences!");
                         ex.printStackTrace(System.err);
@@ -106,6 +224,16 @@ public final class PropertiesFilePreferencesFactory implements PreferencesFactor
         return userRoot;
     }
 
+    private void prefetch(final PropertiesFilePreferences root) {
+        if (prefetchDepth >= 0) {
+            try {
+                root.prefetch(prefetchDepth);
+            } catch (final BackingStoreException ex) {
+                throw new RuntimeException("Failed to prefetch preferences: " + root.absolutePath(), ex);
+            }
+        }
+    }
+
     /**
      * Checks if the system variable is set and is a valid directory. If this is not the case a {@link RuntimeException} will be thrown.
      * 
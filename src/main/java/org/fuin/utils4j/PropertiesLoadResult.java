@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Result of loading many {@link PropertiesSource}s: The merged properties and the time it took to load each source.
+ */
+public final class PropertiesLoadResult {
+
+    private final Properties properties;
+
+    private final List<PropertiesSource> sources;
+
+    private final List<Duration> durations;
+
+    /**
+     * Constructor with all data.
+     *
+     * @param properties
+     *            Merged properties - Cannot be <code>null</code>.
+     * @param sources
+     *            Loaded sources - Cannot be <code>null</code>.
+     * @param durations
+     *            Time spent for loading each source in the order of the sources - Cannot be <code>null</code>.
+     */
+    public PropertiesLoadResult(final Properties properties, final List<PropertiesSource> sources, final List<Duration> durations) {
+        super();
+        Utils4J.checkNotNull("properties", properties);
+        Utils4J.checkNotNull("sources", sources);
+        Utils4J.checkNotNull("durations", durations);
+        if (sources.size() != durations.size()) {
+            throw new IllegalArgumentException(
+                    "Expected one duration per source, but was " + durations.size() + " durations for " + sources.size() + " sources");
+        }
+        this.properties = properties;
+        this.sources = Collections.unmodifiableList(new ArrayList<>(sources));
+        this.durations = Collections.unmodifiableList(new ArrayList<>(durations));
+    }
+
+    /**
+     * Returns the merged properties. If a key exists in more than one source, the value of the last source in the list wins.
+     *
+     * @return Properties.
+     */
+    public final Properties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Returns the loaded sources. The same source may be contained more than once.
+     *
+     * @return Unmodifiable list in the order the sources were given.
+     */
+    public final List<PropertiesSource> getSources() {
+        return sources;
+    }
+
+    /**
+     * Returns the time spent for loading each source.
+     *
+     * @return Unmodifiable list with the duration at the same index as the source in {@link #getSources()}.
+     */
+    public final List<Duration> getDurations() {
+        return durations;
+    }
+
+    /**
+     * Returns the source that took the longest time to load.
+     *
+     * @return Slowest source or <code>null</code> if no source was loaded.
+     */
+    public final PropertiesSource getSlowest() {
+        int slowest = -1;
+        for (int i = 0; i < durations.size(); i++) {
+            if ((slowest == -1) || (durations.get(i).compareTo(durations.get(slowest)) > 0)) {
+                slowest = i;
+            }
+        }
+        return slowest == -1 ? null : sources.get(slowest);
+    }
+
+}
@@ -0,0 +1,317 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Read only properties in a compact binary file that is mapped into memory. Opening a snapshot does not parse anything, a lookup is a
+ * binary search in the sorted key index and only decodes the requested value. The file starts with a magic number and the number of
+ * properties followed by the offsets of all entries sorted by the UTF-8 bytes of the key. Each entry is the length prefixed UTF-8 key and
+ * the length prefixed UTF-8 value. Snapshots are written by replacing the file, so a snapshot that is in use is never changed. This class
+ * is thread-safe.
+ */
+public final class PropertiesSnapshot {
+
+    /** Magic number at the start of the file ("PSN1"). */
+    private static final int MAGIC = 0x50534E31;
+
+    private static final int HEADER_LENGTH = 8;
+
+    private final File file;
+
+    private final ByteBuffer buffer;
+
+    private final int size;
+
+    /**
+     * Constructor with snapshot file.
+     *
+     * @param file
+     *            File written with one of the <code>write</code> methods - Cannot be <code>null</code>.
+     *
+     * @throws IOException
+     *             Error mapping the file or the file is not a snapshot.
+     */
+    public PropertiesSnapshot(final File file) throws IOException {
+        super();
+        Utils4J.checkNotNull("file", file);
+        this.file = file;
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to be mapped (" + length + " bytes): " + file);
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+        if ((buffer.limit() < HEADER_LENGTH) || (buffer.getInt(0) != MAGIC)) {
+            throw new IOException("File is not a properties snapshot: " + file);
+        }
+        this.size = buffer.getInt(4);
+        if ((size < 0) || (HEADER_LENGTH + 4L * size > buffer.limit())) {
+            throw new IOException("Properties snapshot is damaged: " + file);
+        }
+    }
+
+    /**
+     * Returns a snapshot of a text file in the format of {@link Properties}. If the snapshot does not exist or the modification time of the
+     * text file changed since the snapshot was written, the text file is loaded and the snapshot is written again.
+     *
+     * @param textFile
+     *            Properties file that is the source of the snapshot - Cannot be <code>null</code>.
+     * @param snapshotFile
+     *            Snapshot of the text file - Cannot be <code>null</code>.
+     *
+     * @return Snapshot.
+     *
+     * @throws IOException
+     *             Error reading or writing one of the files.
+     */
+    public static PropertiesSnapshot of(final File textFile, final File snapshotFile) throws IOException {
+        Utils4J.checkNotNull("textFile", textFile);
+        Utils4J.checkNotNull("snapshotFile", snapshotFile);
+        // The snapshot gets the modification time of the text file it was created from
+        final long lastModified = textFile.lastModified();
+        if (!snapshotFile.exists() || (snapshotFile.lastModified() != lastModified)) {
+            write(snapshotFile, PropertiesUtils.loadProperties(textFile), lastModified);
+        }
+        return new PropertiesSnapshot(snapshotFile);
+    }
+
+    /**
+     * Writes a snapshot of properties.
+     *
+     * @param snapshotFile
+     *            File to create or replace - Cannot be <code>null</code>.
+     * @param props
+     *            Properties to write - Cannot be <code>null</code>.
+     *
+     * @throws IOException
+     *             Error writing the file.
+     */
+    public static void write(final File snapshotFile, final Properties props) throws IOException {
+        Utils4J.checkNotNull("snapshotFile", snapshotFile);
+        Utils4J.checkNotNull("props", props);
+        write(snapshotFile, props, 0);
+    }
+
+    /**
+     * Writes a snapshot of a properties file. Properties that are marked as removed are not included.
+     *
+     * @param snapshotFile
+     *            File to create or replace - Cannot be <code>null</code>.
+     * @param propFile
+     *            Properties to write - Cannot be <code>null</code>.
+     *
+     * @throws IOException
+     *             Error writing the file.
+     */
+    public static void write(final File snapshotFile, final PropertiesFile propFile) throws IOException {
+        Utils4J.checkNotNull("snapshotFile", snapshotFile);
+        Utils4J.checkNotNull("propFile", propFile);
+        write(snapshotFile, propFile.toProperties(), 0);
+    }
+
+    private static void write(final File snapshotFile, final Properties props, final long lastModified) throws IOException {
+
+        final List<byte[][]> entries = new ArrayList<>(props.size());
+        for (final String key : props.stringPropertyNames()) {
+            entries.add(new byte[][] { key.getBytes(StandardCharsets.UTF_8), props.getProperty(key).getBytes(StandardCharsets.UTF_8) });
+        }
+        entries.sort((a, b) -> Arrays.compareUnsigned(a[0], b[0]));
+
+        // Offsets are stored as int and the file is mapped into a single buffer
+        long length = HEADER_LENGTH + 4L * entries.size();
+        for (final byte[][] entry : entries) {
+            length = length + 8 + entry[0].length + entry[1].length;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Properties are too large for a snapshot (" + length + " bytes): " + snapshotFile);
+        }
+
+        final File dir = snapshotFile.getAbsoluteFile().getParentFile();
+        final File tmpFile = File.createTempFile("." + snapshotFile.getName() + ".", ".tmp", dir);
+        try {
+            try (final FileOutputStream fos = new FileOutputStream(tmpFile);
+                    final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+                out.writeInt(MAGIC);
+                out.writeInt(entries.size());
+                int offset = HEADER_LENGTH + 4 * entries.size();
+                for (final byte[][] entry : entries) {
+                    out.writeInt(offset);
+                    offset = offset + 8 + entry[0].length + entry[1].length;
+                }
+                for (final byte[][] entry : entries) {
+                    out.writeInt(entry[0].length);
+                    out.write(entry[0]);
+                    out.writeInt(entry[1].length);
+                    out.write(entry[1]);
+                }
+                out.flush();
+                fos.getFD().sync();
+            }
+            if (lastModified > 0) {
+                tmpFile.setLastModified(lastModified);
+            }
+            Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            tmpFile.delete();
+        }
+
+    }
+
+    /**
+     * Returns the snapshot file.
+     *
+     * @return Mapped file.
+     */
+    public final File getFile() {
+        return file;
+    }
+
+    /**
+     * Number of properties.
+     *
+     * @return Number of keys.
+     */
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * Determines if a property exists.
+     *
+     * @param key
+     *            Key to find - Cannot be <code>null</code>.
+     *
+     * @return If the key is known <code>true</code> else <code>false</code>.
+     */
+    public final boolean containsKey(final String key) {
+        Utils4J.checkNotNull("key", key);
+        return find(key.getBytes(StandardCharsets.UTF_8)) > -1;
+    }
+
+    /**
+     * Returns a value for a given key. Only this value is decoded.
+     *
+     * @param key
+     *            Key to find - Cannot be <code>null</code>.
+     *
+     * @return Value or <code>null</code> if the key is unknown.
+     */
+    public final String get(final String key) {
+        Utils4J.checkNotNull("key", key);
+        final int offset = find(key.getBytes(StandardCharsets.UTF_8));
+        if (offset == -1) {
+            return null;
+        }
+        final int valueOffset = offset + 4 + buffer.getInt(offset);
+        return decode(valueOffset + 4, buffer.getInt(valueOffset));
+    }
+
+    /**
+     * Returns a list of all keys sorted by their UTF-8 bytes.
+     *
+     * @return List of keys.
+     */
+    public final List<String> getKeyList() {
+        final List<String> keys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final int offset = entryOffset(i);
+            keys.add(decode(offset + 4, buffer.getInt(offset)));
+        }
+        return keys;
+    }
+
+    /**
+     * Returns a copy of all properties.
+     *
+     * @return All key/values.
+     */
+    public final Map<String, String> toMap() {
+        final Map<String, String> map = new HashMap<>();
+        for (final String key : getKeyList()) {
+            map.put(key, get(key));
+        }
+        return map;
+    }
+
+    private int entryOffset(final int index) {
+        return buffer.getInt(HEADER_LENGTH + 4 * index);
+    }
+
+    /**
+     * Binary search in the sorted key index.
+     *
+     * @param key
+     *            UTF-8 bytes of the key.
+     *
+     * @return Offset of the entry or -1 if the key was not found.
+     */
+    private int find(final byte[] key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int offset = entryOffset(mid);
+            final int cmp = compare(offset + 4, buffer.getInt(offset), key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private int compare(final int start, final int len, final byte[] key) {
+        final int n = Math.min(len, key.length);
+        for (int i = 0; i < n; i++) {
+            final int cmp = Byte.compareUnsigned(buffer.get(start + i), key[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return len - key.length;
+    }
+
+    private String decode(final int start, final int len) {
+        final byte[] bytes = new byte[len];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
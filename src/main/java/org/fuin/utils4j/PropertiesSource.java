@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import static org.fuin.utils4j.Utils4J.checkNotNull;
+
+/**
+ * A location properties can be loaded from: A file, an URL or a classpath resource. Used for loading many sources at once with
+ * {@link PropertiesUtils#loadProperties(java.util.List)}. This class is immutable.
+ */
+public final class PropertiesSource {
+
+    private final String name;
+
+    private final Supplier<Properties> loader;
+
+    private PropertiesSource(final String name, final Supplier<Properties> loader) {
+        super();
+        this.name = name;
+        this.loader = loader;
+    }
+
+    /**
+     * Creates a source for a file.
+     *
+     * @param file
+     *            Properties file - Cannot be <code>null</code>.
+     *
+     * @return New source.
+     */
+    public static PropertiesSource of(final File file) {
+        checkNotNull("file", file);
+        return new PropertiesSource(file.toString(), () -> PropertiesUtils.loadProperties(file));
+    }
+
+    /**
+     * Creates a source for an URL.
+     *
+     * @param fileURL
+     *            Property file URL - Cannot be <code>null</code>.
+     *
+     * @return New source.
+     */
+    public static PropertiesSource of(final URL fileURL) {
+        checkNotNull("fileURL", fileURL);
+        return new PropertiesSource(fileURL.toExternalForm(), () -> PropertiesUtils.loadProperties(fileURL));
+    }
+
+    /**
+     * Creates a source for a classpath resource.
+     *
+     * @param loader
+     *            Class loader to use - Cannot be <code>null</code>.
+     * @param resource
+     *            Resource to load - Cannot be <code>null</code>.
+     *
+     * @return New source.
+     */
+    public static PropertiesSource of(final ClassLoader loader, final String resource) {
+        checkNotNull("loader", loader);
+        checkNotNull("resource", resource);
+        return new PropertiesSource("classpath:" + resource, () -> PropertiesUtils.loadProperties(loader, resource));
+    }
+
+    /**
+     * Creates a source for a classpath resource in the same package as a class.
+     *
+     * @param clasz
+     *            Class in the same package as the properties file - Cannot be <code>null</code>.
+     * @param filename
+     *            Name of the properties file (without path) - Cannot be <code>null</code>.
+     *
+     * @return New source.
+     */
+    public static PropertiesSource of(final Class<?> clasz, final String filename) {
+        checkNotNull("clasz", clasz);
+        checkNotNull("filename", filename);
+        return of(clasz.getClassLoader(), Utils4J.getPackagePath(clasz) + "/" + filename);
+    }
+
+    /**
+     * Returns the name of the source.
+     *
+     * @return File name, URL or resource prefixed with "classpath:".
+     */
+    public final String getName() {
+        return name;
+    }
+
+    /**
+     * Loads the properties.
+     *
+     * @return Properties.
+     */
+    public final Properties load() {
+        return loader.get();
+    }
+
+    @Override
+    public final String toString() {
+        return name;
+    }
+
+}
@@ -20,7 +20,15 @@ package org.fuin.utils4j;
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.fuin.utils4j.Utils4J.*;
 
@@ -29,6 +37,9 @@ import static org.fuin.utils4j.Utils4J.*;
  */
 public final class PropertiesUtils {
 
+    /** Maximum number of sources loaded in parallel by {@link #loadProperties(List)}. */
+    public static final int MAX_PARALLEL_LOADS = 8;
+
     /**
      * Private default constructor.
      */
@@ -182,4 +193,99 @@ public final class PropertiesUtils {
 
     }
 
+    /**
+     * Loads many sources concurrently and merges them. If a key exists in more than one source, the value of the last source in the list
+     * wins. At most {@value #MAX_PARALLEL_LOADS} sources are loaded in parallel by daemon threads that only exist during this call. Use
+     * {@link #loadProperties(List, Executor)} to reuse existing threads.
+     * 
+     * @param sources
+     *            Sources to load - Cannot be <code>null</code>.
+     * 
+     * @return Merged properties and the time it took to load each source.
+     */
+    public static PropertiesLoadResult loadProperties(final List<PropertiesSource> sources) {
+        checkNotNull("sources", sources);
+        final int threads = Math.max(1, Math.min(sources.size(), MAX_PARALLEL_LOADS));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "utils4j-properties-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            return loadProperties(sources, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Loads many sources concurrently and merges them. If a key exists in more than one source, the value of the last source in the list
+     * wins. The result does not depend on the order the sources complete. If loading a source fails, an exception with the name of the
+     * first failed source in the list is thrown after all other sources completed.
+     * 
+     * @param sources
+     *            Sources to load - Cannot be <code>null</code>.
+     * @param executor
+     *            Executor used to load the sources, for example a fixed size thread pool to limit the number of parallel loads - Cannot be
+     *            <code>null</code>.
+     * 
+     * @return Merged properties and the time it took to load each source.
+     */
+    public static PropertiesLoadResult loadProperties(final List<PropertiesSource> sources, final Executor executor) {
+        checkNotNull("sources", sources);
+        checkNotNull("executor", executor);
+
+        final List<CompletableFuture<Properties>> futures = new ArrayList<>(sources.size());
+        final long[] nanos = new long[sources.size()];
+        for (int i = 0; i < sources.size(); i++) {
+            final PropertiesSource source = sources.get(i);
+            checkNotNull("sources[" + i + "]", source);
+            final int index = i;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                final long start = System.nanoTime();
+                try {
+                    return source.load();
+                } finally {
+                    nanos[index] = System.nanoTime() - start;
+                }
+            }, executor));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (final CompletionException ex) {
+            throw loadFailure(sources, futures);
+        }
+
+        // Completing the futures makes the durations visible to this thread
+        final Properties props = new Properties();
+        final List<Duration> durations = new ArrayList<>(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            props.putAll(futures.get(i).join());
+            durations.add(Duration.ofNanos(nanos[i]));
+        }
+        return new PropertiesLoadResult(props, sources, durations);
+    }
+
+    /**
+     * Creates an exception for the first failed source. Failures of the other sources are added as suppressed exceptions.
+     */
+    private static RuntimeException loadFailure(final List<PropertiesSource> sources, final List<CompletableFuture<Properties>> futures) {
+        RuntimeException failure = null;
+        for (int i = 0; i < sources.size(); i++) {
+            try {
+                futures.get(i).join();
+            } catch (final CompletionException ex) {
+                final RuntimeException rex = new RuntimeException("Failed to load properties from '" + sources.get(i).getName() + "'!",
+                        ex.getCause());
+                if (failure == null) {
+                    failure = rex;
+                } else {
+                    failure.addSuppressed(rex);
+                }
+            }
+        }
+        return failure;
+    }
+
 }
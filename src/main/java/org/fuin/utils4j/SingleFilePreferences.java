@@ -0,0 +1,298 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.prefs.AbstractPreferences;
+import java.util.prefs.BackingStoreException;
+
+/**
+ * A <code>Preferences</code> API implementation that stores the whole tree in a single <code>PropertiesFile</code>. The key of a
+ * preference in the file is the path of the node relative to the root, two slashes and the preference key ("a/b//key"). The existence of a
+ * node is stored with an empty entry of the path followed by one slash ("a/b/"). Backslashes, '=' and line breaks are escaped. As all nodes
+ * share the file, flushing any node writes the changes of all nodes with a single save.
+ */
+public final class SingleFilePreferences extends AbstractPreferences {
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String KEY_SEPARATOR = "//";
+
+    private final Store store;
+
+    /** Escaped path relative to the root without leading or trailing slash - Empty for the root. */
+    private final String path;
+
+    /**
+     * Constructor with file. This is constructing the "root" node.
+     *
+     * @param file
+     *            File where the preferences of the whole tree are stored - Cannot be <code>null</code>.
+     */
+    public SingleFilePreferences(final File file) {
+        this(null, "", new Store(new PropertiesFile(file)));
+    }
+
+    private SingleFilePreferences(final SingleFilePreferences parent, final String name, final Store store) {
+        super(parent, name);
+        this.store = store;
+        if (parent == null) {
+            this.path = "";
+        } else if (parent.path.isEmpty()) {
+            this.path = escape(name);
+        } else {
+            this.path = parent.path + "/" + escape(name);
+        }
+    }
+
+    @Override
+    protected final AbstractPreferences childSpi(final String name) {
+        final SingleFilePreferences child = new SingleFilePreferences(this, name, store);
+        synchronized (store) {
+            store.loadIfNecessary();
+            if (store.file.get(child.path + "/") == null) {
+                store.file.put(child.path + "/", "");
+                store.dirty = true;
+            }
+        }
+        return child;
+    }
+
+    @Override
+    protected final String[] childrenNamesSpi() throws BackingStoreException {
+        final String prefix = path.isEmpty() ? "" : path + "/";
+        final List<String> names = new ArrayList<>();
+        synchronized (store) {
+            store.loadIfNecessary();
+            final Iterator<String> it = store.file.keyIterator();
+            while (it.hasNext()) {
+                final String key = it.next();
+                if (key.startsWith(prefix) && (key.length() > prefix.length() + 1) && key.endsWith("/")
+                        && (key.indexOf('/', prefix.length()) == key.length() - 1) && (store.file.get(key) != null)) {
+                    names.add(unescape(key.substring(prefix.length(), key.length() - 1)));
+                }
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
+    @Override
+    protected final void flushSpi() throws BackingStoreException {
+        synchronized (store) {
+            if (store.dirty) {
+                try {
+                    final File dir = store.file.getFile().getAbsoluteFile().getParentFile();
+                    if (!dir.exists() && !dir.mkdirs()) {
+                        throw new BackingStoreException("Failed to create directory '" + dir + "'!");
+                    }
+                    final String[] comments = new String[] { "DO NOT EDIT!", "Created by " + this.getClass().getName(),
+                            DATE_TIME_FORMAT.format(LocalDateTime.now()) };
+                    store.file.save(comments, true);
+                    store.dirty = false;
+                } catch (final BackingStoreException ex) {
+                    throw ex;
+                } catch (final Exception ex) {
+                    throw new BackingStoreException(ex);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected final String getSpi(final String key) {
+        synchronized (store) {
+            store.loadIfNecessary();
+            final String value = store.file.get(entryKey(key));
+            if (value == null) {
+                return null;
+            }
+            return unescape(value);
+        }
+    }
+
+    @Override
+    protected final String[] keysSpi() throws BackingStoreException {
+        final String prefix = path + KEY_SEPARATOR;
+        final List<String> keys = new ArrayList<>();
+        synchronized (store) {
+            store.loadIfNecessary();
+            final Iterator<String> it = store.file.keyIterator();
+            while (it.hasNext()) {
+                final String key = it.next();
+                if (key.startsWith(prefix) && (store.file.get(key) != null)) {
+                    keys.add(unescape(key.substring(prefix.length())));
+                }
+            }
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    @Override
+    protected final void putSpi(final String key, final String value) {
+        synchronized (store) {
+            store.loadIfNecessary();
+            store.file.put(entryKey(key), escape(value));
+            store.dirty = true;
+        }
+    }
+
+    @Override
+    protected final void removeNodeSpi() throws BackingStoreException {
+        final String prefix = path + KEY_SEPARATOR;
+        synchronized (store) {
+            store.loadIfNecessary();
+            final Set<String> remove = new LinkedHashSet<>();
+            remove.add(path + "/");
+            final Iterator<String> it = store.file.keyIterator();
+            while (it.hasNext()) {
+                final String key = it.next();
+                if (key.startsWith(prefix)) {
+                    remove.add(key);
+                }
+            }
+            for (final String key : remove) {
+                store.file.remove(key);
+            }
+            store.dirty = true;
+        }
+    }
+
+    @Override
+    protected final void removeSpi(final String key) {
+        synchronized (store) {
+            store.loadIfNecessary();
+            store.file.remove(entryKey(key));
+            store.dirty = true;
+        }
+    }
+
+    @Override
+    protected final void syncSpi() throws BackingStoreException {
+        synchronized (store) {
+            if (store.file.exists()) {
+                try {
+                    store.file.load();
+                    store.loaded = true;
+                } catch (final Exception ex) {
+                    throw new BackingStoreException(ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the file where the preferences are stored.
+     *
+     * @return Properties file shared by all nodes of the tree.
+     */
+    public final File getFile() {
+        return store.file.getFile();
+    }
+
+    private String entryKey(final String key) {
+        return path + KEY_SEPARATOR + escape(key);
+    }
+
+    private static String escape(final String str) {
+        final StringBuilder sb = new StringBuilder(str.length());
+        for (int i = 0; i < str.length(); i++) {
+            final char ch = str.charAt(i);
+            switch (ch) {
+            case '\\':
+                sb.append("\\\\");
+                break;
+            case '=':
+                sb.append("\\e");
+                break;
+            case '\n':
+                sb.append("\\n");
+                break;
+            case '\r':
+                sb.append("\\r");
+                break;
+            default:
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String unescape(final String str) {
+        final StringBuilder sb = new StringBuilder(str.length());
+        for (int i = 0; i < str.length(); i++) {
+            final char ch = str.charAt(i);
+            if ((ch == '\\') && (i + 1 < str.length())) {
+                i++;
+                switch (str.charAt(i)) {
+                case 'e':
+                    sb.append('=');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                default:
+                    sb.append(str.charAt(i));
+                }
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * File and state shared by all nodes of a tree. Access is synchronized on this object.
+     */
+    private static final class Store {
+
+        private final PropertiesFile file;
+
+        private boolean loaded;
+
+        private boolean dirty;
+
+        Store(final PropertiesFile file) {
+            this.file = file;
+        }
+
+        void loadIfNecessary() {
+            if (!loaded) {
+                if (file.exists()) {
+                    try {
+                        file.load();
+                    } catch (final Exception ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }
+                loaded = true;
+            }
+        }
+
+    }
+
+}
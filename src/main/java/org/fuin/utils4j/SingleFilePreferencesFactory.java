@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.io.File;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+import java.util.prefs.PreferencesFactory;
+
+/**
+ * A factory for creating root nodes using the <code>SingleFilePreferences</code> implementation.
+ */
+public final class SingleFilePreferencesFactory implements PreferencesFactory {
+
+    /**
+     * System property key used containing the path and name of the "system" preferences file.
+     */
+    public static final String SYSTEM_PREF_FILE = "SingleFilePreferences.SystemFile";
+
+    /**
+     * System property key used containing the path and name of the "user" preferences file.
+     */
+    public static final String USER_PREF_FILE = "SingleFilePreferences.UserFile";
+
+    private final String systemPrefFile;
+
+    private final String userPrefFile;
+
+    private SingleFilePreferences systemRoot = null;
+
+    private SingleFilePreferences userRoot = null;
+
+    /**
+     * Default constructor.
+     */
+    public SingleFilePreferencesFactory() {
+        this(System.getProperty(SYSTEM_PREF_FILE), System.getProperty(USER_PREF_FILE));
+    }
+
+    /**
+     * Constructor with path and filenames of the system and user preferences files.
+     *
+     * @param systemPrefFile
+     *            Path and name of the "system" preferences file.
+     * @param userPrefFile
+     *            Path and name of the "user" preferences file.
+     */
+    public SingleFilePreferencesFactory(final String systemPrefFile, final String userPrefFile) {
+        super();
+        this.systemPrefFile = systemPrefFile;
+        this.userPrefFile = userPrefFile;
+    }
+
+    @Override
+    public final synchronized Preferences systemRoot() {
+        if (systemRoot == null) {
+            systemRoot = new SingleFilePreferences(getValidFile(SYSTEM_PREF_FILE, systemPrefFile));
+            flushAtShutdown(systemRoot, "systemRoot");
+        }
+        return systemRoot;
+    }
+
+    @Override
+    public final synchronized Preferences userRoot() {
+        if (userRoot == null) {
+            userRoot = new SingleFilePreferences(getValidFile(USER_PREF_FILE, userPrefFile));
+            flushAtShutdown(userRoot, "userRoot");
+        }
+        return userRoot;
+    }
+
+    private static void flushAtShutdown(final SingleFilePreferences root, final String name) {
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                try {
+                    root.flush();
+                } catch (final BackingStoreException ex) {
+                    System.err.println("Failed to save '" + name + "' preferences!");
+                    ex.printStackTrace(System.err);
+                }
+            }
+        });
+    }
+
+    /**
+     * Checks if the system variable is set and the parent of the file is a valid directory. If this is not the case a
+     * {@link RuntimeException} will be thrown.
+     *
+     * @param varName
+     *            Name of the system variable.
+     * @param fileName
+     *            Name of the file (from the system variable).
+     *
+     * @return File reference.
+     */
+    private File getValidFile(final String varName, final String fileName) {
+        if (fileName == null) {
+            throw new RuntimeException("The system variable '" + varName + "' is not set!");
+        }
+        final File file = new File(fileName);
+        if (file.isDirectory()) {
+            throw new IllegalArgumentException("The name '" + file + "' is a directory! [system variable '" + varName + "']");
+        }
+        final File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory()) {
+            throw new IllegalArgumentException("The directory '" + dir + "' does not exist! [system variable '" + varName + "']");
+        }
+        return file;
+    }
+
+}
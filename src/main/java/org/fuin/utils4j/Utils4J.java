@@ -62,6 +62,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -643,9 +647,51 @@ public final class Utils4J {
         checkNotNull("destDir", destDir);
         checkValidDir(destDir);
 
+        unzipIntern(zipFile, destDir, wrapper, cancelable, null);
+    }
+
+    /**
+     * Unzips a file into a given directory using the default asynchronous executor. WARNING: Only relative path entries are allowed inside
+     * the archive!
+     *
+     * @param zipFile Source ZIP file - Cannot be <code>null</code> and must be a valid ZIP file.
+     * @param destDir Destination directory - Cannot be <code>null</code> and must exist.
+     * @return Future that completes after the last entry was written. Canceling it aborts the unzip, even in the middle of an entry.
+     * @see #unzipAsync(File, File, UnzipInputStreamWrapper, Executor)
+     */
+    public static CompletableFuture<Void> unzipAsync(final File zipFile, final File destDir) {
+        return unzipAsync(zipFile, destDir, null, null);
+    }
+
+    /**
+     * Unzips a file into a given directory without blocking the caller. WARNING: Only relative path entries are allowed inside the archive!
+     * Canceling the returned future aborts the unzip as soon as the current buffer is written. A partially written file is removed in this
+     * case.
+     *
+     * @param zipFile  Source ZIP file - Cannot be <code>null</code> and must be a valid ZIP file.
+     * @param destDir  Destination directory - Cannot be <code>null</code> and must exist.
+     * @param wrapper  Callback interface to give the caller the chance to wrap the ZIP input stream into another one. This is useful for example
+     *                 to display a progress bar - Can be <code>null</code> if no wrapping is required.
+     * @param executor Executor to run the unzip - Can be <code>null</code> to use a new (virtual if available) thread.
+     * @return Future that completes after the last entry was written or exceptionally with an {@link IOException}.
+     */
+    public static CompletableFuture<Void> unzipAsync(final File zipFile, final File destDir, final UnzipInputStreamWrapper wrapper,
+            final Executor executor) {
+
+        checkNotNull("zipFile", zipFile);
+        checkValidFile(zipFile);
+        checkNotNull("destDir", destDir);
+        checkValidDir(destDir);
+
+        return runAsync(executor, cancelable -> unzipIntern(zipFile, destDir, wrapper, cancelable, cancelable));
+    }
+
+    private static void unzipIntern(final File zipFile, final File destDir, final UnzipInputStreamWrapper wrapper,
+            final Cancelable cancelable, final Cancelable entryCancelable) throws IOException {
+
         try (final ZipFile zip = new ZipFile(zipFile)) {
             final Enumeration<? extends ZipEntry> enu = zip.entries();
-            while (enu.hasMoreElements() && ((cancelable == null) || !cancelable.isCanceled())) {
+            while (enu.hasMoreElements() && !isCanceled(cancelable)) {
                 final ZipEntry entry = enu.nextElement();
                 final File file = new File(entry.getName());
                 if (file.isAbsolute()) {
@@ -657,21 +703,134 @@ public final class Utils4J {
                 } else {
                     final File outFile = new File(destDir, entry.getName());
                     createIfNecessary(outFile.getParentFile());
+                    final boolean complete;
                     try (final InputStream in = (wrapper == null ? new BufferedInputStream(zip.getInputStream(entry))
                             : new BufferedInputStream(wrapper.wrapInputStream(zip.getInputStream(entry), entry, outFile)))) {
                         try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(outFile))) {
-                            final byte[] buf = new byte[4096];
-                            int len;
-                            while ((len = in.read(buf)) > 0) {
-                                out.write(buf, 0, len);
-                            }
+                            complete = copy(in, out, new byte[4096], entryCancelable);
                         }
                     }
+                    if (!complete) {
+                        Files.deleteIfExists(outFile.toPath());
+                    }
                 }
             }
         }
     }
 
+    /**
+     * Copies the input to the output stream until the end of the input is reached or the copy was canceled.
+     *
+     * @param in         Stream to read from.
+     * @param out        Stream to write to.
+     * @param buf        Buffer to use.
+     * @param cancelable Checked before writing each buffer - Can be <code>null</code> if no cancel option is required.
+     * @return If all bytes were copied <code>true</code> or <code>false</code> if the copy was canceled.
+     * @throws IOException Error reading or writing.
+     */
+    private static boolean copy(final InputStream in, final OutputStream out, final byte[] buf, final Cancelable cancelable)
+            throws IOException {
+        int len;
+        while ((len = in.read(buf)) > 0) {
+            if (isCanceled(cancelable)) {
+                return false;
+            }
+            out.write(buf, 0, len);
+        }
+        return true;
+    }
+
+    private static boolean isCanceled(final Cancelable cancelable) {
+        return (cancelable != null) && cancelable.isCanceled();
+    }
+
+    /**
+     * Runs a cancelable I/O task on an executor. Canceling the returned future signals the task to stop.
+     *
+     * @param executor Executor to use or <code>null</code> for the default one.
+     * @param task     Task to run.
+     * @return Future bound to the task.
+     */
+    private static CompletableFuture<Void> runAsync(final Executor executor, final CancelableIOTask task) {
+        final Cancelable cancelable = new CancelableVolatile();
+        final CompletableFuture<Void> future = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(final boolean mayInterruptIfRunning) {
+                cancelable.cancel();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        final Runnable runnable = () -> {
+            try {
+                task.run(cancelable);
+                future.complete(null);
+            } catch (final IOException | RuntimeException ex) {
+                future.completeExceptionally(ex);
+            } catch (final Error err) {
+                // Complete the future before the error reaches the executor's thread
+                future.completeExceptionally(err);
+                throw err;
+            }
+        };
+        try {
+            (executor == null ? AsyncExecutorHolder.EXECUTOR : executor).execute(runnable);
+        } catch (final RejectedExecutionException ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    /**
+     * Returns the default executor for asynchronous tasks of this library.
+     *
+     * @return Executor that starts a virtual thread per task if the JRE supports it or a new daemon thread otherwise.
+     */
+    static Executor getDefaultAsyncExecutor() {
+        return AsyncExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * I/O task that should stop as soon as possible once it's canceled.
+     */
+    @FunctionalInterface
+    private static interface CancelableIOTask {
+
+        /**
+         * Executes the task.
+         *
+         * @param cancelable Signals if the task should be canceled.
+         * @throws IOException Error executing the task.
+         */
+        public void run(Cancelable cancelable) throws IOException;
+
+    }
+
+    /**
+     * Lazy created default executor for the asynchronous methods. Starts a virtual thread per task if the JRE supports it or a new daemon
+     * thread otherwise.
+     */
+    private static final class AsyncExecutorHolder {
+
+        private static final Executor EXECUTOR = create();
+
+        private AsyncExecutorHolder() {
+            throw new UnsupportedOperationException("This utility class is not intended to be instanciated!");
+        }
+
+        private static Executor create() {
+            try {
+                return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (final ReflectiveOperationException ex) { // NOSONAR Expected for JRE before 21
+                return runnable -> {
+                    final Thread thread = new Thread(runnable, "utils4j-async");
+                    thread.setDaemon(true);
+                    thread.start();
+                };
+            }
+        }
+
+    }
+
     private static void createIfNecessary(final File dir) throws IOException {
         if (dir.exists()) {
             return;
@@ -1054,22 +1213,21 @@ public final class Utils4J {
     /**
      * Adds a file to a ZIP output stream.
      *
-     * @param srcFile  File to add - Cannot be <code>null</code>.
-     * @param destPath Path to use for the file - May be <code>null</code> or empty.
-     * @param out      Destination stream - Cannot be <code>null</code>.
+     * @param srcFile    File to add - Cannot be <code>null</code>.
+     * @param destPath   Path to use for the file - May be <code>null</code> or empty.
+     * @param out        Destination stream - Cannot be <code>null</code>.
+     * @param cancelable Signals if the ZIP should be canceled - Can be <code>null</code> if no cancel option is required.
      * @throws IOException Error writing to the output stream.
      */
-    private static void zipFile(final File srcFile, final String destPath, final ZipOutputStream out) throws IOException {
+    private static void zipFile(final File srcFile, final String destPath, final ZipOutputStream out, final Cancelable cancelable)
+            throws IOException {
 
         final byte[] buf = new byte[1024];
         try (final InputStream in = new BufferedInputStream(new FileInputStream(srcFile))) {
             final ZipEntry zipEntry = new ZipEntry(concatPathAndFilename(destPath, srcFile.getName(), File.separator));
             zipEntry.setTime(srcFile.lastModified());
             out.putNextEntry(zipEntry);
-            int len;
-            while ((len = in.read(buf)) > 0) {
-                out.write(buf, 0, len);
-            }
+            copy(in, out, buf, cancelable);
             out.closeEntry();
         }
     }
@@ -1096,21 +1254,22 @@ public final class Utils4J {
     /**
      * Add a directory to a ZIP output stream.
      *
-     * @param srcDir   Directory to add - Cannot be <code>null</code> and must be a valid directory.
-     * @param filter   Filter or <code>null</code> for all files.
-     * @param destPath Path to use for the ZIP archive - May be <code>null</code> or an empyt string.
-     * @param out      Destination stream - Cannot be <code>null</code>.
+     * @param srcDir     Directory to add - Cannot be <code>null</code> and must be a valid directory.
+     * @param filter     Filter or <code>null</code> for all files.
+     * @param destPath   Path to use for the ZIP archive - May be <code>null</code> or an empyt string.
+     * @param out        Destination stream - Cannot be <code>null</code>.
+     * @param cancelable Signals if the ZIP should be canceled - Can be <code>null</code> if no cancel option is required.
      * @throws IOException Error writing to the output stream.
      */
-    private static void zipDir(final File srcDir, final FileFilter filter, final String destPath, final ZipOutputStream out)
-            throws IOException {
+    private static void zipDir(final File srcDir, final FileFilter filter, final String destPath, final ZipOutputStream out,
+            final Cancelable cancelable) throws IOException {
 
         final File[] files = listFiles(srcDir, filter);
-        for (int i = 0; i < files.length; i++) {
+        for (int i = 0; (i < files.length) && !isCanceled(cancelable); i++) {
             if (files[i].isDirectory()) {
-                zipDir(files[i], filter, concatPathAndFilename(destPath, files[i].getName(), File.separator), out);
+                zipDir(files[i], filter, concatPathAndFilename(destPath, files[i].getName(), File.separator), out, cancelable);
             } else {
-                zipFile(files[i], destPath, out);
+                zipFile(files[i], destPath, out, cancelable);
             }
         }
 
@@ -1133,11 +1292,57 @@ public final class Utils4J {
         Utils4J.checkNotNull("destFile", destFile);
 
         try (final ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(destFile)))) {
-            zipDir(srcDir, filter, destPath, out);
+            zipDir(srcDir, filter, destPath, out, null);
         }
 
     }
 
+    /**
+     * Creates a ZIP file without blocking the caller and adds all files in a directory and all it's sub directories to the archive. Only
+     * entries are added that comply to the file filter. Canceling the returned future aborts the ZIP as soon as the current buffer is written
+     * and removes the incomplete target file.
+     *
+     * @param srcDir   Directory to add - Cannot be <code>null</code> and must be a valid directory.
+     * @param filter   Filter or <code>null</code> for all files/directories.
+     * @param destPath Path to use for the ZIP archive - May be <code>null</code> or an empyt string.
+     * @param destFile Target ZIP file - Cannot be <code>null</code>.
+     * @param executor Executor to run the ZIP - Can be <code>null</code> to use a new (virtual if available) thread.
+     * @return Future that completes after the archive was written or exceptionally with an {@link IOException}.
+     */
+    public static CompletableFuture<Void> zipDirAsync(final File srcDir, final FileFilter filter, final String destPath, final File destFile,
+            final Executor executor) {
+
+        Utils4J.checkNotNull("srcDir", srcDir);
+        Utils4J.checkValidDir(srcDir);
+        Utils4J.checkNotNull("destFile", destFile);
+
+        return runAsync(executor, cancelable -> {
+            try (final ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(destFile)))) {
+                zipDir(srcDir, filter, destPath, out, cancelable);
+            }
+            if (cancelable.isCanceled()) {
+                Files.deleteIfExists(destFile.toPath());
+            }
+        });
+
+    }
+
+    /**
+     * Creates a ZIP file without blocking the caller using the default asynchronous executor and adds all files in a directory and all it's
+     * sub directories to the archive.
+     *
+     * @param srcDir   Directory to add - Cannot be <code>null</code> and must be a valid directory.
+     * @param destPath Path to use for the ZIP archive - May be <code>null</code> or an empyt string.
+     * @param destFile Target ZIP file - Cannot be <code>null</code>.
+     * @return Future that completes after the archive was written. Canceling it aborts the ZIP, even in the middle of an entry.
+     * @see #zipDirAsync(File, FileFilter, String, File, Executor)
+     */
+    public static CompletableFuture<Void> zipDirAsync(final File srcDir, final String destPath, final File destFile) {
+
+        return zipDirAsync(srcDir, null, destPath, destFile, null);
+
+    }
+
     /**
      * Creates a ZIP file and adds all files in a directory and all it's sub directories to the archive.
      *
@@ -0,0 +1,229 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+/**
+ * Reader that replaces all variables (Format: ${key} ) with values from a map while reading from another reader. Variables may span
+ * multiple reads from the underlying reader. Only a single variable name is buffered, so the memory used does not depend on the size of the
+ * input. The result is the same as calling {@link Utils4J#replaceVars(String, Map)} with the whole content, as long as no variable name is
+ * longer than the configured maximum. A <code>${</code> followed by more than the maximum number of characters without a closing bracket
+ * is passed through unchanged up to the next closing bracket. This class is not thread-safe.
+ */
+public final class VariableReplacingReader extends Reader {
+
+    /** Default maximum length of a variable name. */
+    public static final int DEFAULT_MAX_KEY_LENGTH = 1024;
+
+    private static final int BUF_SIZE = 8192;
+
+    private static final int TEXT = 0;
+
+    private static final int DOLLAR = 1;
+
+    private static final int KEY = 2;
+
+    private static final int SKIP = 3;
+
+    private final Reader in;
+
+    private final Map<String, String> vars;
+
+    private final int maxKeyLength;
+
+    private final char[] buf;
+
+    private final StringBuilder key;
+
+    private int bufPos;
+
+    private int bufLen;
+
+    private int state;
+
+    private String pending;
+
+    private int pendingPos;
+
+    private boolean eof;
+
+    /**
+     * Constructor with reader and variables.
+     *
+     * @param in
+     *            Reader to read the text with variables from - Cannot be <code>null</code>.
+     * @param vars
+     *            Map with key/values - May be <code>null</code>.
+     */
+    public VariableReplacingReader(final Reader in, final Map<String, String> vars) {
+        this(in, vars, DEFAULT_MAX_KEY_LENGTH);
+    }
+
+    /**
+     * Constructor with all data.
+     *
+     * @param in
+     *            Reader to read the text with variables from - Cannot be <code>null</code>.
+     * @param vars
+     *            Map with key/values - May be <code>null</code>.
+     * @param maxKeyLength
+     *            Maximum length of a variable name - Must be greater than zero.
+     */
+    public VariableReplacingReader(final Reader in, final Map<String, String> vars, final int maxKeyLength) {
+        super(in);
+        Utils4J.checkNotNull("in", in);
+        if (maxKeyLength < 1) {
+            throw new IllegalArgumentException("The argument 'maxKeyLength' must be greater than zero, but was: " + maxKeyLength);
+        }
+        this.in = in;
+        this.vars = vars;
+        this.maxKeyLength = maxKeyLength;
+        this.buf = new char[BUF_SIZE];
+        this.key = new StringBuilder();
+        this.state = TEXT;
+    }
+
+    @Override
+    public final int read(final char[] cbuf, final int off, final int len) throws IOException {
+        if ((off < 0) || (len < 0) || (len > cbuf.length - off)) {
+            throw new IndexOutOfBoundsException("off=" + off + ", len=" + len + ", cbuf.length=" + cbuf.length);
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        int count = 0;
+        while (count < len) {
+
+            if (pending != null) {
+                final int n = Math.min(len - count, pending.length() - pendingPos);
+                pending.getChars(pendingPos, pendingPos + n, cbuf, off + count);
+                pendingPos += n;
+                count += n;
+                if (pendingPos == pending.length()) {
+                    pending = null;
+                }
+                continue;
+            }
+
+            if (bufPos == bufLen) {
+                if (eof || (count > 0)) {
+                    // Don't block if we already have something to return
+                    break;
+                }
+                fill();
+                continue;
+            }
+
+            final char ch = buf[bufPos++];
+            switch (state) {
+            case TEXT:
+                if (ch == '$') {
+                    state = DOLLAR;
+                } else {
+                    cbuf[off + count++] = ch;
+                    // Copy all following plain text at once
+                    while ((count < len) && (bufPos < bufLen) && (buf[bufPos] != '$')) {
+                        cbuf[off + count++] = buf[bufPos++];
+                    }
+                }
+                break;
+            case DOLLAR:
+                if (ch == '{') {
+                    state = KEY;
+                } else {
+                    // Handle the current character again as normal text
+                    cbuf[off + count++] = '$';
+                    bufPos--;
+                    state = TEXT;
+                }
+                break;
+            case KEY:
+                if (ch == '}') {
+                    pending = replacement(key.toString());
+                    pendingPos = 0;
+                    key.setLength(0);
+                    state = TEXT;
+                } else if (key.length() == maxKeyLength) {
+                    pending = "${" + key + ch;
+                    pendingPos = 0;
+                    key.setLength(0);
+                    state = SKIP;
+                } else {
+                    key.append(ch);
+                }
+                break;
+            default:
+                // SKIP
+                cbuf[off + count++] = ch;
+                if (ch == '}') {
+                    state = TEXT;
+                }
+                break;
+            }
+
+        }
+
+        if ((count == 0) && eof) {
+            return -1;
+        }
+        return count;
+    }
+
+    private void fill() throws IOException {
+        bufPos = 0;
+        bufLen = in.read(buf, 0, buf.length);
+        if (bufLen == -1) {
+            bufLen = 0;
+            eof = true;
+            // Unfinished variables are returned unchanged
+            if (state == DOLLAR) {
+                pending = "$";
+            } else if (state == KEY) {
+                pending = "${" + key;
+                key.setLength(0);
+            }
+            pendingPos = 0;
+            state = TEXT;
+        }
+    }
+
+    private String replacement(final String name) {
+        if (vars != null) {
+            final String value = vars.get(name);
+            if (value != null) {
+                return value;
+            }
+        }
+        return "${" + name + "}";
+    }
+
+    @Override
+    public final boolean ready() throws IOException {
+        return (pending != null) || (bufPos < bufLen) || in.ready();
+    }
+
+    @Override
+    public final void close() throws IOException {
+        in.close();
+    }
+
+}
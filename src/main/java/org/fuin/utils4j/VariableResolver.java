@@ -17,13 +17,27 @@
  */
 package org.fuin.utils4j;
 
-import java.util.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Resolves the references from variable values to other variable names.
  */
 public final class VariableResolver {
 
+    /** Number of variables resolved in a single thread when resolving in parallel. */
+    private static final int PARALLEL_THRESHOLD = 256;
+
     private final Map<String, String> unresolved;
 
     private final Map<String, Integer> depth;
@@ -37,6 +51,20 @@ public final class VariableResolver {
      *            Map to use - May be <code>null</code>.
      */
     public VariableResolver(final Map<String, String> unresolved) {
+        this(unresolved, null);
+    }
+
+    /**
+     * Constructor with variable map and a pool for resolving in parallel. All variables with the same depth only reference variables with a
+     * lower depth. So each depth level is resolved in parallel and the results are merged before continuing with the next level. This is
+     * only useful for large maps with many or long values.
+     * 
+     * @param unresolved
+     *            Map to use - May be <code>null</code>.
+     * @param pool
+     *            Pool to use for resolving the variables - May be <code>null</code> to resolve everything in the current thread.
+     */
+    public VariableResolver(final Map<String, String> unresolved, final ForkJoinPool pool) {
         if (unresolved == null) {
             this.unresolved = new HashMap<>();
         } else {
@@ -44,70 +72,127 @@ public final class VariableResolver {
         }
         depth = new HashMap<>();
         resolved = new HashMap<>();
-        resolve();
+        resolve(pool);
     }
 
-    private void resolve() {
-        int max = 0;
-        Iterator<String> it = unresolved.keySet().iterator();
-        while (it.hasNext()) {
-            final String name = it.next();
-            final String value = unresolved.get(name);
-            final int d = resolve(name, value, new ArrayList<String>());
-            if (d > max) {
-                max = d;
+    private void resolve(final ForkJoinPool pool) {
+
+        // Names in an order where all referenced variables come before the variable that references them
+        final List<String> order = new ArrayList<>(unresolved.size());
+        for (final String name : unresolved.keySet()) {
+            if (!depth.containsKey(name)) {
+                calculateDepth(name, order);
             }
         }
 
-        for (int d = 0; d <= max; d++) {
-            it = unresolved.keySet().iterator();
-            while (it.hasNext()) {
-                final String name = it.next();
-                final String value = unresolved.get(name);
-                if (depth.get(name).intValue() == d) {
-                    resolved.put(name, Utils4J.replaceCrLfTab(Utils4J.replaceVars(value, resolved)));
+        if (pool == null) {
+            for (final String name : order) {
+                resolved.put(name, resolve(name));
+            }
+        } else {
+            for (final List<String> level : levels(order)) {
+                if (level.size() <= PARALLEL_THRESHOLD) {
+                    for (final String name : level) {
+                        resolved.put(name, resolve(name));
+                    }
+                    continue;
+                }
+                final String[] names = level.toArray(new String[level.size()]);
+                final String[] values = new String[names.length];
+                pool.invoke(new ResolveTask(names, values, 0, names.length));
+                for (int i = 0; i < names.length; i++) {
+                    resolved.put(names[i], values[i]);
                 }
             }
         }
 
     }
 
-    private Integer resolve(final String name, final String value, final List<String> path) {
+    /**
+     * Returns the value of a variable with all references replaced. All referenced variables must already be resolved.
+     * 
+     * @param name
+     *            Name of the variable.
+     * 
+     * @return Resolved value.
+     */
+    private String resolve(final String name) {
+        return Utils4J.replaceCrLfTab(Utils4J.replaceVars(unresolved.get(name), resolved));
+    }
 
-        // Check for cycles
-        if (path.contains(name)) {
-            final StringBuilder sb = new StringBuilder();
-            final Iterator<String> it = path.iterator();
-            while (it.hasNext()) {
-                sb.append(it.next() + " > ");
+    /**
+     * Groups the variables by depth.
+     * 
+     * @param names
+     *            Names of known variables.
+     * 
+     * @return Variables with the same depth, the index of the list is the depth.
+     */
+    private List<List<String>> levels(final List<String> names) {
+        final List<List<String>> levels = new ArrayList<>();
+        for (final String name : names) {
+            final int d = depth.get(name);
+            while (levels.size() <= d) {
+                levels.add(new ArrayList<>());
             }
-            sb.append(name);
-            throw new IllegalStateException("Cycle: " + sb);
+            levels.get(d).add(name);
         }
+        return levels;
+    }
+
+    /**
+     * Calculates the depth of a variable and all variables it references with a depth first search. The depth of a variable is one more
+     * than the maximum depth of all variables it references. Uses an explicit stack, so very long reference chains don't overflow the call
+     * stack.
+     * 
+     * @param start
+     *            Variable to start with.
+     * @param order
+     *            List to append all visited variables to after their references are visited.
+     */
+    private void calculateDepth(final String start, final List<String> order) {
+
+        final Set<String> path = new LinkedHashSet<>();
+        final Deque<Node> stack = new ArrayDeque<>();
+        path.add(start);
+        stack.push(new Node(start, references(unresolved.get(start))));
+
+        while (!stack.isEmpty()) {
+            final Node node = stack.peek();
+            if (node.refs.hasNext()) {
+                final String refName = node.refs.next();
+
+                // Check for cycles
+                if (path.contains(refName)) {
+                    final StringBuilder sb = new StringBuilder();
+                    for (final String name : path) {
+                        sb.append(name + " > ");
+                    }
+                    sb.append(refName);
+                    throw new IllegalStateException("Cycle: " + sb);
+                }
 
-        // Analyze
-        Integer d = depth.get(name);
-        if (d == null) {
-            final Set<String> refs = references(value);
-            if (refs.isEmpty()) {
-                d = 0;
+                final Integer d = depth.get(refName);
+                if (d == null) {
+                    path.add(refName);
+                    stack.push(new Node(refName, references(unresolved.get(refName))));
+                } else {
+                    node.depth = Math.max(node.depth, d + 1);
+                }
             } else {
-                final Iterator<String> it = refs.iterator();
-                while (it.hasNext()) {
-                    final String refName = it.next();
-                    final String refValue = unresolved.get(refName);
-                    d = 1 + resolve(refName, refValue, add(path, name));
+                stack.pop();
+                path.remove(node.name);
+                depth.put(node.name, node.depth);
+                if (unresolved.containsKey(node.name)) {
+                    order.add(node.name);
+                }
+                final Node parent = stack.peek();
+                if (parent != null) {
+                    parent.depth = Math.max(parent.depth, node.depth + 1);
                 }
             }
-            depth.put(name, d);
         }
-        return d;
-    }
 
-    private List<String> add(final List<String> list, final String name) {
-        final List<String> newList = new ArrayList<>(list);
-        newList.add(name);
-        return newList;
     }
 
     /**
@@ -170,4 +255,58 @@ public final class VariableResolver {
 
     }
 
+    /**
+     * Variable on the stack of the depth first search.
+     */
+    private static final class Node {
+
+        private final String name;
+
+        private final Iterator<String> refs;
+
+        private int depth;
+
+        public Node(final String name, final Set<String> refs) {
+            this.name = name;
+            this.refs = refs.iterator();
+        }
+
+    }
+
+    /**
+     * Resolves a range of variables with the same depth and splits the work if the range is too large.
+     */
+    private final class ResolveTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] names;
+
+        private final String[] values;
+
+        private final int from;
+
+        private final int to;
+
+        public ResolveTask(final String[] names, final String[] values, final int from, final int to) {
+            this.names = names;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    values[i] = resolve(names[i]);
+                }
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new ResolveTask(names, values, from, middle), new ResolveTask(names, values, middle, to));
+            }
+        }
+
+    }
+
 }
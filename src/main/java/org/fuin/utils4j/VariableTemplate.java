@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Text with variables (Format: ${key} ) that is parsed only once and can be rendered many times with different variable maps. The result is
+ * always the same as calling {@link Utils4J#replaceVars(String, Map)} with the source text. Instances are immutable and thread-safe.
+ */
+public final class VariableTemplate {
+
+    private final String source;
+
+    private final String[] texts;
+
+    private final String[] keys;
+
+    /**
+     * Constructor with all data.
+     *
+     * @param source
+     *            Parsed text.
+     * @param texts
+     *            Literal text or original variable token for each segment.
+     * @param keys
+     *            Variable name or <code>null</code> for a literal segment.
+     */
+    private VariableTemplate(final String source, final String[] texts, final String[] keys) {
+        super();
+        this.source = source;
+        this.texts = texts;
+        this.keys = keys;
+    }
+
+    /**
+     * Parses a text into literal and variable segments.
+     *
+     * @param str
+     *            Text with variables (Format: ${key} ) - Cannot be <code>null</code>.
+     *
+     * @return New template.
+     */
+    public static VariableTemplate compile(final String str) {
+        Utils4J.checkNotNull("str", str);
+
+        final List<String> texts = new ArrayList<>();
+        final List<String> keys = new ArrayList<>();
+
+        int from = 0;
+        int start;
+        while ((start = str.indexOf("${", from)) > -1) {
+            if (start > from) {
+                texts.add(str.substring(from, start));
+                keys.add(null);
+            }
+            final int end = str.indexOf('}', start + 1);
+            if (end == -1) {
+                // No closing bracket found...
+                from = start;
+                break;
+            }
+            texts.add(str.substring(start, end + 1));
+            keys.add(str.substring(start + 2, end));
+            from = end + 1;
+        }
+        if (from < str.length()) {
+            texts.add(str.substring(from));
+            keys.add(null);
+        }
+
+        return new VariableTemplate(str, texts.toArray(new String[texts.size()]), keys.toArray(new String[keys.size()]));
+    }
+
+    /**
+     * Returns the text the template was created from.
+     *
+     * @return Source text - Never <code>null</code>.
+     */
+    public final String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns if the template contains at least one variable.
+     *
+     * @return If there are variables <code>true</code> else <code>false</code>.
+     */
+    public final boolean hasVariables() {
+        for (final String key : keys) {
+            if (key != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces all variables with values from a map.
+     *
+     * @param vars
+     *            Map with key/values - May be <code>null</code>.
+     *
+     * @return Text with replaced variables. Unknown variables will remain unchanged.
+     */
+    public final String render(final Map<String, String> vars) {
+        if ((vars == null) || vars.isEmpty()) {
+            return source;
+        }
+        return render(new StringBuilder(source.length()), vars).toString();
+    }
+
+    /**
+     * Appends the text to a string builder and replaces all variables with values from a map.
+     *
+     * @param sb
+     *            String builder to append to - Cannot be <code>null</code>.
+     * @param vars
+     *            Map with key/values - May be <code>null</code>.
+     *
+     * @return The string builder.
+     */
+    public final StringBuilder render(final StringBuilder sb, final Map<String, String> vars) {
+        Utils4J.checkNotNull("sb", sb);
+        for (int i = 0; i < texts.length; i++) {
+            sb.append(valueOf(i, vars));
+        }
+        return sb;
+    }
+
+    /**
+     * Appends the text to a target and replaces all variables with values from a map.
+     *
+     * @param appendable
+     *            Target to append to - Cannot be <code>null</code>.
+     * @param vars
+     *            Map with key/values - May be <code>null</code>.
+     *
+     * @throws IOException
+     *             Error appending to the target.
+     */
+    public final void render(final Appendable appendable, final Map<String, String> vars) throws IOException {
+        Utils4J.checkNotNull("appendable", appendable);
+        for (int i = 0; i < texts.length; i++) {
+            appendable.append(valueOf(i, vars));
+        }
+    }
+
+    private String valueOf(final int index, final Map<String, String> vars) {
+        final String key = keys[index];
+        if ((key == null) || (vars == null)) {
+            return texts[index];
+        }
+        final String value = vars.get(key);
+        if (value == null) {
+            return texts[index];
+        }
+        return value;
+    }
+
+    @Override
+    public final String toString() {
+        return source;
+    }
+
+}
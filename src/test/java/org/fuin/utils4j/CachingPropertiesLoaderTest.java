@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.data.MapEntry.entry;
+
+/**
+ * Test for {@link CachingPropertiesLoader}.
+ */
+public class CachingPropertiesLoaderTest {
+
+    // CHECKSTYLE:OFF
+
+    private File dir;
+
+    private File file;
+
+    @BeforeEach
+    public final void beforeMethod() throws Exception {
+        dir = new File(Utils4J.getTempDir(), "CachingPropertiesLoaderTest");
+        FileUtils.deleteDirectory(dir);
+        dir.mkdirs();
+        file = new File(dir, "test.properties");
+        FileUtils.writeStringToFile(file, "a=1\n", StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testLoadClassString() {
+
+        // PREPARE
+        final CachingPropertiesLoader testee = new CachingPropertiesLoader();
+
+        // TEST
+        final Map<String, String> first = testee.load(CachingPropertiesLoaderTest.class, "test.properties");
+        final Map<String, String> second = testee.load(CachingPropertiesLoaderTest.class, "test.properties");
+
+        // VERIFY
+        assertThat(first).containsOnly(entry("one", "1"), entry("two", "2"), entry("three", "3"));
+        assertThat(second).isSameAs(first);
+        assertThatThrownBy(() -> first.put("four", "4")).isInstanceOf(UnsupportedOperationException.class);
+
+    }
+
+    @Test
+    public void testLoadNonExisting() {
+
+        // PREPARE
+        final CachingPropertiesLoader testee = new CachingPropertiesLoader();
+
+        // TEST & VERIFY
+        assertThatThrownBy(() -> testee.load(CachingPropertiesLoaderTest.class, "DoesNotExist.properties"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("not found");
+
+    }
+
+    @Test
+    public void testReloadIfModified() throws Exception {
+
+        try (final URLClassLoader loader = new URLClassLoader(new URL[] { dir.toURI().toURL() }, null)) {
+
+            // PREPARE
+            final CachingPropertiesLoader testee = new CachingPropertiesLoader(true);
+            final Map<String, String> first = testee.load(loader, "test.properties");
+            assertThat(testee.load(loader, "test.properties")).isSameAs(first);
+            FileUtils.writeStringToFile(file, "a=2\n", StandardCharsets.UTF_8);
+            file.setLastModified(file.lastModified() + 2000);
+
+            // TEST
+            final Map<String, String> second = testee.load(loader, "test.properties");
+
+            // VERIFY
+            assertThat(first).containsOnly(entry("a", "1"));
+            assertThat(second).containsOnly(entry("a", "2"));
+
+        }
+
+    }
+
+    @Test
+    public void testNoReloadByDefault() throws Exception {
+
+        try (final URLClassLoader loader = new URLClassLoader(new URL[] { dir.toURI().toURL() }, null)) {
+
+            // PREPARE
+            final CachingPropertiesLoader testee = new CachingPropertiesLoader();
+            final Map<String, String> first = testee.load(loader, "test.properties");
+            FileUtils.writeStringToFile(file, "a=2\n", StandardCharsets.UTF_8);
+            file.setLastModified(file.lastModified() + 2000);
+
+            // TEST
+            final Map<String, String> second = testee.load(loader, "test.properties");
+
+            // VERIFY
+            assertThat(second).isSameAs(first);
+            testee.clear();
+            assertThat(testee.load(loader, "test.properties")).containsOnly(entry("a", "2"));
+
+        }
+
+    }
+
+    // CHECKSTYLE:ON
+
+}
@@ -687,5 +687,43 @@ public class ChangeTrackingMapTest {
 
     }
 
+    @Test
+    public void testPutAllToEmptyMap() {
+
+        initialEmptyMap.putAll(toMap("one=1,two=2"));
+
+        assertThat(initialEmptyMap).hasSize(2);
+        assertThat(initialEmptyMap.getAdded()).isEqualTo(toMap("one=1,two=2"));
+        assertThat(initialEmptyMap.getChanged()).isEmpty();
+        assertThat(initialEmptyMap.getRemoved()).isEmpty();
+
+        initialEmptyMap.revert();
+        assertThat(initialEmptyMap).isEmpty();
+
+    }
+
+    @Test
+    public void testPutAllAfterClear() {
+
+        initialFilledMap.clear();
+        initialFilledMap.putAll(toMap("one=1,two=22,four=4"));
+
+        assertThat(initialFilledMap.getAdded()).isEqualTo(toMap("four=4"));
+        assertThat(initialFilledMap.getChanged()).isEqualTo(toMap("two=2"));
+        assertThat(initialFilledMap.getRemoved()).isEqualTo(toMap("three=3"));
+
+    }
+
+    @Test
+    public void testPutAllUntagged() {
+
+        initialEmptyMap.untag();
+        initialEmptyMap.putAll(toMap("one=1,two=2"));
+
+        assertThat(initialEmptyMap).hasSize(2);
+        assertThat(initialEmptyMap.isChanged()).isFalse();
+
+    }
+
 }
 // CHECKSTYLE:ON
@@ -22,9 +22,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 //CHECKSTYLE:OFF
 public class ChangeTrackingUniqueListTest {
@@ -767,5 +769,105 @@ public class ChangeTrackingUniqueListTest {
 
     }
 
+    @Test
+    public void testManyElements() {
+
+        // Would take minutes with linear membership checks
+        final int count = 100000;
+        for (int i = 0; i < count; i++) {
+            initialEmptyList.add("e" + i);
+        }
+        for (int i = 0; i < count; i += 2) {
+            assertThat(initialEmptyList.contains("e" + i)).isTrue();
+        }
+        assertThat(initialEmptyList.contains("x")).isFalse();
+        assertThat(initialEmptyList.getAdded()).hasSize(count);
+        initialEmptyList.clear();
+        assertThat(initialEmptyList.isChanged()).isFalse();
+        initialFilledList.clear();
+        assertThat(initialFilledList.getDeleted()).containsExactly("one", "two", "three");
+
+    }
+
+    @Test
+    public void testIteratorChangesAreTracked() {
+
+        final Iterator<String> it = initialFilledList.iterator();
+        it.next();
+        it.remove();
+
+        assertThat(initialFilledList.contains("one")).isFalse();
+        assertThat(initialFilledList.getDeleted()).containsExactly("one");
+
+        initialFilledList.listIterator().add("four");
+        assertThat(initialFilledList.getAdded()).containsExactly("four");
+        assertThatThrownBy(() -> initialFilledList.listIterator().add("two")).isInstanceOf(IllegalArgumentException.class);
+
+        initialFilledList.revert();
+        assertThat(initialFilledList).containsExactlyInAnyOrder("one", "two", "three");
+        assertThat(initialFilledList.contains("one")).isTrue();
+        assertThat(initialFilledList.contains("four")).isFalse();
+
+    }
+
+    @Test
+    public void testSetDuplicate() {
+
+        assertThatThrownBy(() -> initialFilledList.set(1, "one")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(initialFilledList).containsExactly("one", "two", "three");
+
+        assertThat(initialFilledList.set(0, "one")).isEqualTo("one");
+        initialFilledList.remove(0);
+        assertThat(initialFilledList.contains("one")).isFalse();
+        assertThat(initialFilledList.contains("two")).isTrue();
+        assertThat(initialFilledList.indexOf("two")).isEqualTo(0);
+
+    }
+
+    @Test
+    public void testSubListIsUnmodifiable() {
+
+        assertThat(initialFilledList.subList(0, 2)).containsExactly("one", "two");
+        assertThatThrownBy(() -> initialFilledList.subList(0, 2).clear()).isInstanceOf(UnsupportedOperationException.class);
+
+    }
+
+    @Test
+    public void testAddAllWithDuplicateAddsNothing() {
+
+        assertThatThrownBy(() -> initialFilledList.addAll(toList("four", "two"))).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("already in the list");
+        assertThatThrownBy(() -> initialFilledList.addAll(1, toList("four", "five", "four"))).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("more than once");
+
+        assertThat(new ArrayList<String>(initialFilledList)).containsExactly("one", "two", "three");
+        assertThat(initialFilledList.isChanged()).isFalse();
+
+    }
+
+    @Test
+    public void testBulkOperationsWithManyElements() {
+
+        final int count = 100000;
+        final List<String> elements = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            elements.add("e" + i);
+        }
+        initialFilledList.addAll(1, elements);
+        assertThat(initialFilledList).hasSize(count + 3);
+        assertThat(initialFilledList.get(1)).isEqualTo("e0");
+        assertThat(initialFilledList.getAdded()).hasSize(count);
+
+        initialFilledList.removeAll(elements.subList(0, count / 2));
+        assertThat(initialFilledList).hasSize(count / 2 + 3);
+        assertThat(initialFilledList.getAdded()).hasSize(count / 2);
+
+        initialFilledList.retainAll(toList("one", "three"));
+        assertThat(new ArrayList<String>(initialFilledList)).containsExactly("one", "three");
+        assertThat(initialFilledList.getAdded()).isEmpty();
+        assertThat(initialFilledList.getDeleted()).containsExactly("two");
+
+    }
+
 }
 // CHECKSTYLE:ON
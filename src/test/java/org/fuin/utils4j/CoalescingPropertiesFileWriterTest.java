@@ -0,0 +1,217 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test for {@link CoalescingPropertiesFileWriter}.
+ */
+public class CoalescingPropertiesFileWriterTest {
+
+    // CHECKSTYLE:OFF
+
+    private File testFile;
+
+    @BeforeEach
+    public final void beforeMethod() {
+        testFile = new File(Utils4J.getTempDir(), "CoalescingPropertiesFileWriterTest.properties");
+        testFile.delete();
+    }
+
+    @Test
+    public void testChangesOfAllThreadsSavedOnce() throws Exception {
+
+        // PREPARE
+        final List<Runnable> scheduled = new CopyOnWriteArrayList<>();
+        final CoalescingPropertiesFileWriter testee = new CoalescingPropertiesFileWriter(new PropertiesFile(testFile), 0, scheduled::add);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+
+            // TEST
+            final List<CompletableFuture<CompletableFuture<Void>>> calls = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                final String key = "key" + i;
+                calls.add(CompletableFuture.supplyAsync(() -> testee.put(key, "value"), executor));
+            }
+            final List<CompletableFuture<Void>> saved = new ArrayList<>();
+            for (final CompletableFuture<CompletableFuture<Void>> call : calls) {
+                saved.add(call.get(5, TimeUnit.SECONDS));
+            }
+            assertThat(testee.get("key39")).isEqualTo("value");
+            assertThat(testFile).doesNotExist();
+            // The save is only handed to the executor after the (zero) time window
+            final long end = System.currentTimeMillis() + 5000;
+            while (scheduled.isEmpty() && (System.currentTimeMillis() < end)) {
+                Thread.sleep(10);
+            }
+            scheduled.get(0).run();
+
+            // VERIFY
+            for (final CompletableFuture<Void> future : saved) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            assertThat(scheduled).hasSize(1);
+            final PropertiesFile check = new PropertiesFile(testFile);
+            check.load();
+            assertThat(check.size()).isEqualTo(40);
+            assertThat(testee.get("key39")).isEqualTo("value");
+
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    @Test
+    public void testChangeDuringSaveDoesNotWait() throws Exception {
+
+        // PREPARE
+        final CountDownLatch saving = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final PropertiesFile propFile = new PropertiesFile(testFile);
+        final CoalescingPropertiesFileWriter testee = new CoalescingPropertiesFileWriter(propFile, 60000);
+        testee.update(f -> {
+            if (f == propFile) {
+                // Executed on the file when saving
+                saving.countDown();
+                await(release);
+            }
+            f.put("a", "1");
+        });
+        final CompletableFuture<Void> flush = CompletableFuture.runAsync(testee::flush);
+        assertThat(saving.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // TEST
+        final CompletableFuture<Void> future = testee.put("b", "2");
+
+        // VERIFY
+        assertThat(testee.get("a")).isEqualTo("1");
+        assertThat(testee.get("b")).isEqualTo("2");
+        release.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+        assertThat(future.isDone()).isFalse();
+        testee.close();
+        future.get(5, TimeUnit.SECONDS);
+        final PropertiesFile check = new PropertiesFile(testFile);
+        check.load();
+        assertThat(check.get("a")).isEqualTo("1");
+        assertThat(check.get("b")).isEqualTo("2");
+
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void testSaveFailure() throws Exception {
+
+        // PREPARE
+        final PropertiesFile other = new PropertiesFile(testFile);
+        other.put("a", "1");
+        other.save(false);
+        final PropertiesFile propFile = new PropertiesFile(testFile);
+        propFile.load();
+        other.put("a", "2");
+        other.save(false);
+        final CoalescingPropertiesFileWriter testee = new CoalescingPropertiesFileWriter(propFile, 0);
+
+        // TEST
+        final CompletableFuture<Void> future = testee.put("a", "3");
+
+        // VERIFY
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(MergeException.class);
+
+    }
+
+    @Test
+    public void testChangeAfterConflict() throws Exception {
+
+        // PREPARE
+        final PropertiesFile other = new PropertiesFile(testFile);
+        other.put("a", "1");
+        other.save(false);
+        final PropertiesFile propFile = new PropertiesFile(testFile);
+        propFile.load();
+        other.put("a", "2");
+        other.save(false);
+        final CoalescingPropertiesFileWriter testee = new CoalescingPropertiesFileWriter(propFile, 60000);
+        final CompletableFuture<Void> conflict = testee.put("a", "3");
+        testee.flush();
+        assertThat(conflict.isCompletedExceptionally()).isTrue();
+
+        // TEST
+        final CompletableFuture<Void> future = testee.put("b", "4");
+        testee.flush();
+
+        // VERIFY
+        future.get(5, TimeUnit.SECONDS);
+        assertThat(testee.get("a")).isEqualTo("2");
+        assertThat(testee.get("b")).isEqualTo("4");
+        final PropertiesFile check = new PropertiesFile(testFile);
+        check.load();
+        assertThat(check.get("a")).isEqualTo("2");
+        assertThat(check.get("b")).isEqualTo("4");
+
+    }
+
+    @Test
+    public void testCloseSavesPending() throws Exception {
+
+        // PREPARE
+        final CoalescingPropertiesFileWriter testee = new CoalescingPropertiesFileWriter(new PropertiesFile(testFile), 60000);
+        final CompletableFuture<Void> future1 = testee.put("a", "1");
+        final CompletableFuture<Void> future2 = testee.put("b", "2");
+
+        // TEST
+        testee.close();
+
+        // VERIFY
+        assertThat(future1.isDone()).isTrue();
+        assertThat(future2.isDone()).isTrue();
+        final PropertiesFile check = new PropertiesFile(testFile);
+        check.load();
+        assertThat(check.get("a")).isEqualTo("1");
+        assertThatThrownBy(() -> testee.put("c", "3")).isInstanceOf(IllegalStateException.class);
+
+    }
+
+    // CHECKSTYLE:ON
+
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.data.MapEntry.entry;
+
+/**
+ * Test for {@link ConcurrentChangeTrackingMap}.
+ */
+public class ConcurrentChangeTrackingMapTest {
+
+    // CHECKSTYLE:OFF
+
+    private ConcurrentChangeTrackingMap<String, String> testee;
+
+    @BeforeEach
+    public final void beforeMethod() {
+        final ConcurrentHashMap<String, String> map = new ConcurrentHashMap<>();
+        map.put("one", "1");
+        map.put("two", "2");
+        map.put("three", "3");
+        testee = new ConcurrentChangeTrackingMap<>(map);
+    }
+
+    @Test
+    public void testTrackChanges() {
+
+        // TEST
+        testee.put("four", "4");
+        testee.put("one", "11");
+        testee.remove("two");
+        testee.put("three", "33");
+        testee.put("three", "3");
+        testee.putIfAbsent("one", "X");
+        testee.replace("five", "5");
+        assertThat(testee.remove("four", "X")).isFalse();
+        assertThat(testee.replace("one", "11", "111")).isTrue();
+
+        // VERIFY
+        assertThat(testee.isChanged()).isTrue();
+        assertThat(testee.getAdded()).containsOnly(entry("four", "4"));
+        assertThat(testee.getChanged()).containsOnly(entry("one", "1"));
+        assertThat(testee.getRemoved()).containsOnly(entry("two", "2"));
+        assertThatThrownBy(() -> testee.keySet().remove("one")).isInstanceOf(UnsupportedOperationException.class);
+
+    }
+
+    @Test
+    public void testRevertToTag() {
+
+        // PREPARE
+        final Map<String, String> expected = new HashMap<>(testee);
+        testee.put("four", "4");
+        testee.put("one", "11");
+        testee.remove("two");
+        testee.computeIfAbsent("five", k -> "5");
+        testee.merge("three", "3", (a, b) -> a + b);
+
+        // TEST
+        testee.revertToTag();
+
+        // VERIFY
+        assertThat(new HashMap<>(testee)).isEqualTo(expected);
+        assertThat(testee.isChanged()).isFalse();
+        assertThat(testee.getAdded()).isEmpty();
+
+    }
+
+    @Test
+    public void testDrain() {
+
+        // PREPARE
+        testee.put("four", "4");
+        testee.remove("one");
+
+        // TEST
+        final ConcurrentChangeTrackingMap.Changes<String, String> first = testee.drain();
+        testee.put("four", "44");
+        final ConcurrentChangeTrackingMap.Changes<String, String> second = testee.drain();
+
+        // VERIFY
+        assertThat(first.getAdded()).containsOnly(entry("four", "4"));
+        assertThat(first.getRemoved()).containsOnly(entry("one", "1"));
+        assertThat(first.getChanged()).isEmpty();
+        assertThat(second.getAdded()).isEmpty();
+        assertThat(second.getChanged()).containsOnly(entry("four", "4"));
+        assertThat(testee.drain().isEmpty()).isTrue();
+
+    }
+
+    @Test
+    public void testUntag() {
+
+        // TEST
+        testee.untag();
+        testee.put("four", "4");
+
+        // VERIFY
+        assertThat(testee.isTagged()).isFalse();
+        assertThat(testee.isChanged()).isFalse();
+        testee.tag();
+        testee.remove("four");
+        assertThat(testee.getRemoved()).containsOnly(entry("four", "4"));
+
+    }
+
+    @Test
+    public void testConcurrentWritersAndDrain() throws Exception {
+
+        // PREPARE
+        final int threads = 4;
+        final int count = 10000;
+        final List<CompletableFuture<Void>> writers = new ArrayList<>();
+        final Map<String, String> drained = new ConcurrentHashMap<>();
+
+        // TEST
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < count; i++) {
+                    testee.put("t" + thread + "-" + i, "v" + i);
+                    testee.merge("counter", "x", (a, b) -> a + b);
+                }
+            }));
+        }
+        while (!writers.stream().allMatch(CompletableFuture::isDone)) {
+            drained.putAll(testee.drain().getAdded());
+        }
+        drained.putAll(testee.drain().getAdded());
+
+        // VERIFY
+        assertThat(drained.size()).isEqualTo(threads * count + 1);
+        assertThat(testee.get("counter").length()).isEqualTo(threads * count);
+        assertThat(testee.size()).isEqualTo(threads * count + 4);
+
+    }
+
+    // CHECKSTYLE:ON
+
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.data.MapEntry.entry;
+
+/**
+ * Test for {@link ConcurrentPropertiesFile}.
+ */
+public class ConcurrentPropertiesFileTest {
+
+    // CHECKSTYLE:OFF
+
+    private File testFile;
+
+    @BeforeEach
+    public final void beforeMethod() throws Exception {
+        testFile = new File(Utils4J.getTempDir(), "ConcurrentPropertiesFileTest.properties");
+        testFile.delete();
+        final PropertiesFile propFile = new PropertiesFile(testFile);
+        propFile.put("a", "1");
+        propFile.put("b", "2");
+        propFile.save(false);
+    }
+
+    @Test
+    public void testSnapshots() throws Exception {
+
+        // PREPARE
+        final ConcurrentPropertiesFile testee = new ConcurrentPropertiesFile(testFile);
+        assertThat(testee.getSnapshot()).isEmpty();
+        testee.load();
+        final Map<String, String> loaded = testee.getSnapshot();
+
+        // TEST
+        testee.update(f -> {
+            f.put("a", "x");
+            f.remove("b");
+            f.put("c", "3");
+        });
+
+        // VERIFY
+        assertThat(loaded).containsExactly(entry("a", "1"), entry("b", "2"));
+        assertThat(testee.getSnapshot()).containsExactly(entry("a", "x"), entry("c", "3"));
+        assertThat(testee.get("b")).isNull();
+        assertThatThrownBy(() -> testee.getSnapshot().put("d", "4")).isInstanceOf(UnsupportedOperationException.class);
+
+    }
+
+    @Test
+    public void testSave() throws Exception {
+
+        // PREPARE
+        final ConcurrentPropertiesFile testee = new ConcurrentPropertiesFile(testFile);
+        testee.load();
+        testee.put("c", "3");
+        testee.remove("a");
+
+        // TEST
+        testee.save(false);
+
+        // VERIFY
+        final PropertiesFile check = new PropertiesFile(testFile);
+        check.load();
+        assertThat(check.getKeyList()).containsExactly("b", "c");
+        assertThat(testee.getSnapshot()).containsExactly(entry("b", "2"), entry("c", "3"));
+
+    }
+
+    @Test
+    public void testReadersDuringWrites() throws Exception {
+
+        // PREPARE
+        final ConcurrentPropertiesFile testee = new ConcurrentPropertiesFile(testFile);
+        testee.load();
+        testee.put("b", "1");
+        final AtomicBoolean stop = new AtomicBoolean();
+        final CompletableFuture<Boolean> reader = CompletableFuture.supplyAsync(() -> {
+            boolean ok = true;
+            while (!stop.get()) {
+                // Both values are always changed together
+                final Map<String, String> snapshot = testee.getSnapshot();
+                ok = ok && snapshot.get("a").equals(snapshot.get("b"));
+            }
+            return ok;
+        });
+
+        // TEST
+        for (int i = 0; i < 200; i++) {
+            final String value = "v" + i;
+            testee.update(f -> {
+                f.put("a", value);
+                f.put("b", value);
+            });
+            if (i % 50 == 0) {
+                testee.save(false);
+            }
+        }
+        stop.set(true);
+
+        // VERIFY
+        assertThat(reader.get()).isTrue();
+
+    }
+
+    // CHECKSTYLE:ON
+
+}
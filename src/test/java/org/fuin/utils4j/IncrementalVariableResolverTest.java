@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.data.MapEntry.entry;
+
+/**
+ * Test for {@link IncrementalVariableResolver}.
+ */
+public class IncrementalVariableResolverTest {
+
+    // CHECKSTYLE:OFF
+
+    @Test
+    public void testNullConstruction() {
+
+        // PREPARE & TEST
+        final IncrementalVariableResolver testee = new IncrementalVariableResolver(null);
+
+        // VERIFY
+        assertThat(testee.getDepth()).isEmpty();
+        assertThat(testee.getResolved()).isEmpty();
+        assertThat(testee.getUnresolved()).isEmpty();
+
+    }
+
+    @Test
+    public void testPutChangesDependents() {
+
+        // PREPARE
+        final Map<String, String> vars = new HashMap<>();
+        vars.put("a", "1");
+        vars.put("b", "${a}/2");
+        vars.put("c", "${b}/3");
+        vars.put("d", "4");
+        final IncrementalVariableResolver testee = new IncrementalVariableResolver(vars);
+
+        // TEST
+        final Map<String, String> before = new HashMap<>(testee.getResolved());
+        assertThat(testee.put("a", "X")).containsExactly("a", "b", "c");
+
+        // VERIFY
+        assertThat(before).contains(entry("c", "1/2/3"));
+        assertThat(testee.getResolved()).contains(entry("a", "X"), entry("b", "X/2"), entry("c", "X/2/3"), entry("d", "4"));
+
+    }
+
+    @Test
+    public void testPutSameValue() {
+
+        // PREPARE
+        final Map<String, String> vars = new HashMap<>();
+        vars.put("a", "1");
+        vars.put("b", "${a}");
+        final IncrementalVariableResolver testee = new IncrementalVariableResolver(vars);
+
+        // TEST & VERIFY
+        assertThat(testee.put("a", "1")).isEmpty();
+
+    }
+
+    @Test
+    public void testPutOnlyReportsChangedValues() {
+
+        // PREPARE
+        final Map<String, String> vars = new HashMap<>();
+        vars.put("a", "1");
+        vars.put("b", "${a}");
+        vars.put("c", "${b}");
+        final IncrementalVariableResolver testee = new IncrementalVariableResolver(vars);
+
+        // TEST & VERIFY
+        assertThat(testee.put("b", "1")).isEmpty();
+        assertThat(testee.getDepth()).contains(entry("a", 0), entry("b", 0), entry("c", 1));
+
+    }
+
+    @Test
+    public void testPutPreviouslyUnknown() {
+
+        // PREPARE
+        final Map<String, String> vars = new HashMap<>();
+        vars.put("a", "1${x}");
+        final IncrementalVariableResolver testee = new IncrementalVariableResolver(vars);
+        assertThat(testee.getResolved()).contains(entry("a", "1${x}"));
+
+        // TEST
+        assertThat(testee.put("x", "2")).containsExactlyInAnyOrder("x", "a");
+
+        // VERIFY
+        assertThat(testee.getResolved()).contains(entry("a", "12"), entry("x", "2"));
+        assertThat(testee.getDepth()).contains(entry("a", 1), entry("x", 0));
+
+    }
+
+    @Test
+    public void testRemove() {
+
+        // PREPARE
+        final Map<String, String> vars = new HashMap<>();
+        vars.put("a", "1");
+        vars.put("b", "${a}/2");
+        final IncrementalVariableResolver testee = new IncrementalVariableResolver(vars);
+
+        // TEST
+        assertThat(testee.remove("a")).containsExactlyInAnyOrder("a", "b");
+
+        // VERIFY
+        assertThat(testee.getResolved()).hasSize(1);
+        assertThat(testee.getResolved()).contains(entry("b", "${a}/2"));
+        assertThat(testee.getDepth()).contains(entry("a", 0), entry("b", 1));
+        assertThat(testee.remove("a")).isEmpty();
+
+    }
+
+    @Test
+    public void testCycle() {
+
+        // PREPARE
+        final Map<String, String> vars = new HashMap<>();
+        vars.put("a", "${b}");
+        vars.put("b", "${c}");
+        vars.put("c", "3");
+        final IncrementalVariableResolver testee = new IncrementalVariableResolver(vars);
+
+        // TEST & VERIFY
+        assertThatThrownBy(() -> testee.put("c", "${a}")).isInstanceOf(IllegalStateException.class).hasMessage("Cycle: c > a > b > c");
+        assertThatThrownBy(() -> testee.put("c", "${c}")).isInstanceOf(IllegalStateException.class).hasMessage("Cycle: c > c");
+        assertThat(testee.getResolved()).contains(entry("a", "3"), entry("b", "3"), entry("c", "3"));
+
+    }
+
+    @Test
+    public void testSameAsFullResolution() {
+
+        final Random random = new Random(4711);
+        final Map<String, String> vars = new HashMap<>();
+        final IncrementalVariableResolver testee = new IncrementalVariableResolver(vars);
+
+        for (int i = 0; i < 2000; i++) {
+            final String name = "v" + random.nextInt(50);
+            if (random.nextInt(5) == 0) {
+                testee.remove(name);
+                vars.remove(name);
+            } else {
+                final String value = "x" + i + "${v" + random.nextInt(60) + "}${v" + random.nextInt(60) + "}";
+                try {
+                    testee.put(name, value);
+                    vars.put(name, value);
+                } catch (final IllegalStateException ex) {
+                    assertThat(ex.getMessage()).startsWith("Cycle: ");
+                }
+            }
+            final VariableResolver expected = new VariableResolver(vars);
+            assertThat(testee.getUnresolved()).isEqualTo(expected.getUnresolved());
+            assertThat(testee.getDepth()).isEqualTo(expected.getDepth());
+            assertThat(testee.getResolved()).isEqualTo(expected.getResolved());
+        }
+
+    }
+
+    // CHECKSTYLE:ON
+
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test for {@link LazyVariableResolver}.
+ */
+public class LazyVariableResolverTest {
+
+    // CHECKSTYLE:OFF
+
+    @Test
+    public void testNullConstruction() {
+
+        // PREPARE & TEST
+        final LazyVariableResolver testee = new LazyVariableResolver(null);
+
+        // VERIFY
+        assertThat(testee.getUnresolved()).isEmpty();
+        assertThat(testee.get("a")).isNull();
+        assertThat(testee.containsKey("a")).isFalse();
+
+    }
+
+    @Test
+    public void testResolvesOnlyDependencyChain() {
+
+        // PREPARE
+        final Map<String, String> vars = new HashMap<>();
+        vars.put("a", "1");
+        vars.put("b", "${a}/2");
+        vars.put("c", "${b}/3");
+        vars.put("d", "${a}/4");
+        vars.put("e", "${x}\\t");
+        final LazyVariableResolver testee = new LazyVariableResolver(vars);
+
+        // TEST
+        assertThat(testee.get("c")).isEqualTo("1/2/3");
+
+        // VERIFY
+        assertThat(testee.isResolved("a")).isTrue();
+        assertThat(testee.isResolved("b")).isTrue();
+        assertThat(testee.isResolved("c")).isTrue();
+        assertThat(testee.isResolved("d")).isFalse();
+        assertThat(testee.isResolved("e")).isFalse();
+        assertThat(testee.get("e")).isEqualTo("${x}\t");
+        assertThat(testee.get("x")).isNull();
+
+    }
+
+    @Test
+    public void testNullValue() {
+
+        // PREPARE
+        final Map<String, String> vars = new HashMap<>();
+        vars.put("a", null);
+        vars.put("b", "${a}");
+        final LazyVariableResolver testee = new LazyVariableResolver(vars);
+
+        // TEST & VERIFY
+        assertThat(testee.containsKey("a")).isTrue();
+        assertThat(testee.get("a")).isNull();
+        assertThat(testee.get("b")).isEqualTo(new VariableResolver(vars).getResolved().get("b"));
+
+    }
+
+    @Test
+    public void testCycle() {
+
+        // PREPARE
+        final Map<String, String> vars = new HashMap<>();
+        vars.put("a", "${b}");
+        vars.put("b", "${c}");
+        vars.put("c", "${a}");
+        vars.put("d", "4");
+        final LazyVariableResolver testee = new LazyVariableResolver(vars);
+
+        // TEST & VERIFY
+        assertThat(testee.get("d")).isEqualTo("4");
+        assertThatThrownBy(() -> testee.get("a")).isInstanceOf(IllegalStateException.class).hasMessage("Cycle: a > b > c > a");
+
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+
+        // PREPARE
+        final Random random = new Random(4711);
+        final Map<String, String> vars = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            if (i % 50 == 0) {
+                vars.put("v" + i, "value" + i);
+            } else {
+                vars.put("v" + i, i + "${v" + random.nextInt(i) + "}${v" + (random.nextInt(1 + i / 50) * 50) + "}");
+            }
+        }
+        final Map<String, String> expected = new VariableResolver(vars).getResolved();
+        final LazyVariableResolver testee = new LazyVariableResolver(vars);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+
+            // TEST
+            final List<Callable<Boolean>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int offset = t;
+                tasks.add(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        final String name = "v" + ((i * 7 + offset * 13) % 5000);
+                        if (!expected.get(name).equals(testee.get(name))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+            }
+
+            // VERIFY
+            for (final Future<Boolean> future : executor.invokeAll(tasks)) {
+                assertThat(future.get()).isTrue();
+            }
+
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    // CHECKSTYLE:ON
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test for {@link MappedPropertiesFile}.
+ */
+public class MappedPropertiesFileTest {
+
+    // CHECKSTYLE:OFF
+
+    private File testFile;
+
+    @BeforeEach
+    public final void beforeMethod() {
+        testFile = new File(Utils4J.getTempDir(), "MappedPropertiesFileTest.properties");
+        testFile.delete();
+    }
+
+    private void write(final String content, final String encoding) throws Exception {
+        Files.write(testFile.toPath(), content.getBytes(Charset.forName(encoding)));
+    }
+
+    @Test
+    public void testSameAsPropertiesFile() throws Exception {
+
+        // PREPARE
+        write("# Comment\na=1\r\nb=x=y\rno separator\nc=\n\nä€=öü\na=2\r\nd=last", "UTF-8");
+        final PropertiesFile expected = new PropertiesFile(testFile);
+        expected.load();
+
+        // TEST
+        final MappedPropertiesFile testee = new MappedPropertiesFile(testFile);
+
+        // VERIFY
+        assertThat(testee.size()).isEqualTo(expected.size());
+        assertThat(testee.getKeyList()).isEqualTo(expected.getKeyList());
+        for (final String key : expected.getKeyList()) {
+            assertThat(testee.containsKey(key)).isTrue();
+            assertThat(testee.get(key)).isEqualTo(expected.get(key));
+        }
+        assertThat(testee.get("a")).isEqualTo("2");
+        assertThat(testee.get("b")).isEqualTo("x=y");
+        assertThat(testee.get("c")).isEqualTo("");
+        assertThat(testee.get("ä€")).isEqualTo("öü");
+        assertThat(testee.get("no separator")).isNull();
+        assertThat(testee.containsKey("e")).isFalse();
+
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+
+        // PREPARE
+        write("", "UTF-8");
+
+        // TEST
+        final MappedPropertiesFile testee = new MappedPropertiesFile(testFile);
+
+        // VERIFY
+        assertThat(testee.size()).isEqualTo(0);
+        assertThat(testee.getKeyList()).isEmpty();
+        assertThat(testee.get("a")).isNull();
+
+    }
+
+    @Test
+    public void testManyProperties() throws Exception {
+
+        // PREPARE
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append("key" + i + "=value" + i + "\n");
+        }
+        write(sb.toString(), "ISO-8859-1");
+
+        // TEST
+        final MappedPropertiesFile testee = new MappedPropertiesFile(testFile, "ISO-8859-1");
+
+        // VERIFY
+        assertThat(testee.size()).isEqualTo(10000);
+        for (int i = 0; i < 10000; i++) {
+            assertThat(testee.get("key" + i)).isEqualTo("value" + i);
+        }
+        assertThat(testee.getKeyList().get(9999)).isEqualTo("key9999");
+
+    }
+
+    @Test
+    public void testNotAsciiCompatibleEncoding() throws Exception {
+
+        // PREPARE
+        write("a=1", "UTF-16");
+
+        // TEST & VERIFY
+        assertThatThrownBy(() -> new MappedPropertiesFile(testFile, "UTF-16")).isInstanceOf(IllegalArgumentException.class);
+
+    }
+
+    // CHECKSTYLE:ON
+
+}
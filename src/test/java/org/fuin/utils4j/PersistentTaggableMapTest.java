@@ -0,0 +1,208 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.data.MapEntry.entry;
+
+/**
+ * Test for {@link PersistentTaggableMap}.
+ */
+public class PersistentTaggableMapTest {
+
+    // CHECKSTYLE:OFF
+
+    private PersistentTaggableMap<String, String> testee;
+
+    @BeforeEach
+    public final void beforeMethod() {
+        final Map<String, String> map = new HashMap<>();
+        map.put("one", "1");
+        map.put("two", "2");
+        map.put("three", "3");
+        testee = new PersistentTaggableMap<>(map);
+    }
+
+    @Test
+    public void testMapOperations() {
+
+        // TEST
+        assertThat(testee.put("four", "4")).isNull();
+        assertThat(testee.put("one", "11")).isEqualTo("1");
+        assertThat(testee.remove("two")).isEqualTo("2");
+        assertThat(testee.remove("five")).isNull();
+        testee.put(null, "null");
+
+        // VERIFY
+        assertThat(testee).containsOnly(entry("one", "11"), entry("three", "3"), entry("four", "4"), entry(null, "null"));
+        assertThat(testee.size()).isEqualTo(4);
+        assertThat(testee.containsKey("two")).isFalse();
+        assertThat(testee).isEqualTo(new HashMap<>(testee));
+        final Iterator<String> it = testee.keySet().iterator();
+        while (it.hasNext()) {
+            if ("three".equals(it.next())) {
+                it.remove();
+            }
+        }
+        assertThat(testee.containsKey("three")).isFalse();
+        assertThat(testee.size()).isEqualTo(3);
+
+    }
+
+    @Test
+    public void testRevertToTag() {
+
+        // PREPARE
+        final Map<String, String> expected = new HashMap<>(testee);
+        testee.put("four", "4");
+        testee.put("one", "11");
+        testee.remove("two");
+        testee.savepoint();
+        testee.clear();
+
+        // TEST
+        testee.revertToTag();
+
+        // VERIFY
+        assertThat(testee).isEqualTo(expected);
+        assertThat(testee.hasChangedSinceTagging()).isFalse();
+        assertThat(testee.getSavepointCount()).isEqualTo(0);
+        assertThat(testee.isTagged()).isTrue();
+
+    }
+
+    @Test
+    public void testHasChangedSinceTagging() {
+
+        // TEST & VERIFY
+        assertThat(testee.hasChangedSinceTagging()).isFalse();
+        testee.put("four", "4");
+        assertThat(testee.hasChangedSinceTagging()).isTrue();
+        testee.remove("four");
+        assertThat(testee.hasChangedSinceTagging()).isFalse();
+        testee.put("one", "11");
+        assertThat(testee.hasChangedSinceTagging()).isTrue();
+        testee.put("one", "1");
+        assertThat(testee.hasChangedSinceTagging()).isFalse();
+        testee.untag();
+        testee.put("one", "11");
+        assertThat(testee.isTagged()).isFalse();
+        assertThat(testee.hasChangedSinceTagging()).isFalse();
+
+    }
+
+    @Test
+    public void testNestedSavepoints() {
+
+        // PREPARE
+        final int first = testee.savepoint();
+        testee.put("four", "4");
+        final int second = testee.savepoint();
+        testee.remove("one");
+        testee.savepoint();
+        testee.put("five", "5");
+
+        // TEST & VERIFY
+        testee.rollback();
+        assertThat(testee).containsOnly(entry("two", "2"), entry("three", "3"), entry("four", "4"));
+        testee.savepoint();
+        testee.clear();
+        testee.rollbackTo(second);
+        assertThat(testee).containsOnly(entry("one", "1"), entry("two", "2"), entry("three", "3"), entry("four", "4"));
+        assertThat(testee.getSavepointCount()).isEqualTo(first);
+        testee.rollbackTo(first);
+        assertThat(testee).containsOnly(entry("one", "1"), entry("two", "2"), entry("three", "3"));
+        assertThat(testee.getSavepointCount()).isEqualTo(0);
+        assertThatThrownBy(() -> testee.rollback()).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> testee.rollbackTo(1)).isInstanceOf(IllegalArgumentException.class);
+
+    }
+
+    @Test
+    public void testManyEntriesWithCollisions() {
+
+        // PREPARE
+        final Map<Key, Integer> expected = new HashMap<>();
+        final PersistentTaggableMap<Key, Integer> map = new PersistentTaggableMap<>();
+        final Random random = new Random(4711);
+        for (int i = 0; i < 100000; i++) {
+            final Key key = new Key(random.nextInt(50000));
+            if (random.nextInt(4) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                assertThat(map.put(key, i)).isEqualTo(expected.put(key, i));
+            }
+        }
+        assertThat(map).isEqualTo(expected);
+        final Map<Key, Integer> tagged = new HashMap<>(expected);
+        map.untag();
+        map.tag();
+
+        // TEST
+        for (final Key key : tagged.keySet()) {
+            map.remove(key);
+        }
+        assertThat(map).isEmpty();
+        assertThat(map.hasChangedSinceTagging()).isTrue();
+        for (final Map.Entry<Key, Integer> entry : tagged.entrySet()) {
+            map.put(entry.getKey(), entry.getValue());
+        }
+
+        // VERIFY
+        assertThat(map.hasChangedSinceTagging()).isFalse();
+        map.clear();
+        map.revertToTag();
+        assertThat(map).isEqualTo(tagged);
+
+    }
+
+    /**
+     * Key with many hash collisions.
+     */
+    private static final class Key {
+
+        private final int value;
+
+        Key(final int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value / 3;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return (obj instanceof Key) && ((Key) obj).value == value;
+        }
+
+    }
+
+    // CHECKSTYLE:ON
+
+}
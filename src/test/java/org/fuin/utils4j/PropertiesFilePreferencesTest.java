@@ -24,10 +24,21 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.prefs.BackingStoreException;
+import java.util.prefs.PreferenceChangeEvent;
+import java.util.prefs.PreferenceChangeListener;
 import java.util.prefs.Preferences;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.MapEntry.entry;
 
 //CHECKSTYLE:OFF
 public final class PropertiesFilePreferencesTest {
@@ -104,5 +115,263 @@ public final class PropertiesFilePreferencesTest {
 
     }
 
+    @Test
+    public final void testFlushWithFlusherIsQueued() throws BackingStoreException {
+        final File dir = new File(baseDir, "user");
+        final File file = new File(new File(dir, "abc"), PropertiesFilePreferences.FILENAME);
+        final PreferencesFlusher flusher = new PreferencesFlusher(60000, 100);
+        final PropertiesFilePreferences root = new PropertiesFilePreferences(dir, flusher);
+        final Preferences pref = root.node("abc");
+        pref.put("one", "1");
+
+        pref.flush();
+        assertThat(file.exists()).isFalse();
+        assertThat(flusher.getPendingCount()).isEqualTo(1);
+
+        flusher.drain();
+        assertThat(flusher.getPendingCount()).isEqualTo(0);
+        assertThat(file.exists()).isTrue();
+        TestHelper.assertPropertiesEqual(file, ((PropertiesFilePreferences) pref).toProperties());
+    }
+
+    @Test
+    public final void testFlusherWritesInBackground() throws Exception {
+        final File dir = new File(baseDir, "user");
+        final File file = new File(dir, PropertiesFilePreferences.FILENAME);
+        final CountDownLatch written = new CountDownLatch(1);
+        final PreferencesFlusher flusher = new PreferencesFlusher(10, 100, runnable -> {
+            runnable.run();
+            written.countDown();
+        });
+        final PropertiesFilePreferences root = new PropertiesFilePreferences(dir, flusher);
+        root.put("one", "1");
+
+        root.flush();
+        assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(flusher.getPendingCount()).isEqualTo(0);
+        TestHelper.assertPropertiesEqual(file, root.toProperties());
+    }
+
+    @Test
+    public final void testSyncWritesQueuedNode() throws BackingStoreException {
+        final File dir = new File(baseDir, "user");
+        final File file = new File(dir, PropertiesFilePreferences.FILENAME);
+        final PreferencesFlusher flusher = new PreferencesFlusher(60000, 100);
+        final PropertiesFilePreferences root = new PropertiesFilePreferences(dir, flusher);
+        root.put("one", "1");
+        root.flush();
+
+        root.sync();
+        assertThat(flusher.getPendingCount()).isEqualTo(0);
+        assertThat(file.exists()).isTrue();
+        assertThat(root.get("one", null)).isEqualTo("1");
+    }
+
+    @Test
+    public final void testClosedFlusherWritesDirectly() throws BackingStoreException {
+        final File dir = new File(baseDir, "user");
+        final File file = new File(dir, PropertiesFilePreferences.FILENAME);
+        final PreferencesFlusher flusher = new PreferencesFlusher(60000, 100);
+        final PropertiesFilePreferences root = new PropertiesFilePreferences(dir, flusher);
+        root.put("one", "1");
+        root.flush();
+
+        flusher.close();
+        assertThat(file.exists()).isTrue();
+        root.put("two", "2");
+        root.flush();
+        assertThat(flusher.getPendingCount()).isEqualTo(0);
+        TestHelper.assertPropertiesEqual(file, root.toProperties());
+    }
+
+    @Test
+    public final void testChildrenNamesFollowDirectoryChanges() throws BackingStoreException {
+        final File dir = new File(baseDir, "user");
+        final PropertiesFilePreferences root = new PropertiesFilePreferences(dir);
+        root.node("a").put("one", "1");
+        root.flush();
+        assertThat(root.childrenNames()).containsExactly("a");
+
+        // Created by another process
+        assertThat(new File(dir, "b").mkdir()).isTrue();
+        dir.setLastModified(dir.lastModified() + 2000);
+
+        assertThat(root.childrenNames()).containsExactlyInAnyOrder("a", "b");
+    }
+
+    @Test
+    public final void testChildrenNamesFollowCreateInSameTick() throws BackingStoreException, IOException {
+        final File dir = new File(baseDir, "sametick");
+        final PropertiesFilePreferences root = new PropertiesFilePreferences(dir);
+        root.node("a").put("one", "1");
+        root.flush();
+        assertThat(root.childrenNames()).containsExactly("a");
+        final FileTime modified = Files.getLastModifiedTime(dir.toPath());
+
+        // Created by another process without a visible change of the modification time
+        assertThat(new File(dir, "b").mkdir()).isTrue();
+        Files.setLastModifiedTime(dir.toPath(), modified);
+
+        assertThat(root.childrenNames()).containsExactlyInAnyOrder("a", "b");
+    }
+
+    @Test
+    public final void testPrefetch() throws Exception {
+        final File dir = new File(baseDir, "user");
+        final PropertiesFilePreferences writer = new PropertiesFilePreferences(dir);
+        writer.node("a").put("one", "1");
+        writer.node("a/b").put("two", "2");
+        writer.node("a/b/c").put("three", "3");
+        writer.flush();
+
+        final PropertiesFilePreferences root = new PropertiesFilePreferences(dir);
+        root.prefetch(2);
+
+        // Changed on disk after the prefetch
+        writer.node("a").put("one", "X");
+        writer.node("a/b").put("two", "X");
+        writer.node("a/b/c").put("three", "X");
+        writer.flush();
+
+        assertThat(root.node("a").get("one", null)).isEqualTo("1");
+        assertThat(root.node("a/b").get("two", null)).isEqualTo("2");
+        assertThat(root.node("a/b/c").get("three", null)).isEqualTo("X");
+    }
+
+    @Test
+    public final void testFactoryPrefetch() throws Exception {
+        final File dir = new File(baseDir, "user");
+        final PropertiesFilePreferences writer = new PropertiesFilePreferences(dir);
+        writer.node("a").put("one", "1");
+        writer.flush();
+
+        final PropertiesFilePreferencesFactory factory = new PropertiesFilePreferencesFactory(dir.toString(), dir.toString(), null, 1);
+        final Preferences root = factory.userRoot();
+        writer.node("a").put("one", "X");
+        writer.flush();
+
+        assertThat(root.node("a").get("one", null)).isEqualTo("1");
+    }
+
+    @Test
+    public final void testWatcherReloadsChangedNode() throws Exception {
+        final File dir = new File(baseDir, "user");
+        final PropertiesFilePreferences writer = new PropertiesFilePreferences(dir);
+        writer.node("a").put("one", "1");
+        writer.node("a").put("two", "2");
+        writer.flush();
+
+        try (final PreferencesWatcher watcher = new PreferencesWatcher()) {
+            final PropertiesFilePreferences root = new PropertiesFilePreferences(dir, null, watcher);
+            final Preferences node = root.node("a");
+            final BlockingQueue<PreferenceChangeEvent> events = new LinkedBlockingQueue<>();
+            node.addPreferenceChangeListener(events::add);
+            assertThat(watcher.getWatchedCount()).isEqualTo(1);
+
+            // Changed by another process
+            writer.node("a").put("one", "X");
+            writer.node("a").put("three", "3");
+            writer.flush();
+
+            final Map<String, String> changes = new TreeMap<>();
+            for (int i = 0; i < 2; i++) {
+                final PreferenceChangeEvent event = events.poll(10, TimeUnit.SECONDS);
+                assertThat(event).isNotNull();
+                assertThat(event.getNode()).isSameAs(node);
+                changes.put(event.getKey(), event.getNewValue());
+            }
+            assertThat(changes).containsExactly(entry("one", "X"), entry("three", "3"));
+            assertThat(node.get("one", null)).isEqualTo("X");
+            assertThat(node.get("three", null)).isEqualTo("3");
+        }
+    }
+
+    @Test
+    public final void testWatcherReportsRemovedKey() throws Exception {
+        final File dir = new File(baseDir, "user");
+        final PropertiesFilePreferences writer = new PropertiesFilePreferences(dir);
+        writer.node("a").put("one", "1");
+        writer.node("a").put("two", "2");
+        writer.flush();
+
+        try (final PreferencesWatcher watcher = new PreferencesWatcher()) {
+            final PropertiesFilePreferences root = new PropertiesFilePreferences(dir, null, watcher);
+            final Preferences node = root.node("a");
+            final BlockingQueue<PreferenceChangeEvent> events = new LinkedBlockingQueue<>();
+            node.addPreferenceChangeListener(events::add);
+            assertThat(node.get("two", null)).isEqualTo("2");
+
+            // Removed by another process
+            writer.node("a").remove("two");
+            writer.flush();
+
+            final PreferenceChangeEvent event = events.poll(10, TimeUnit.SECONDS);
+            assertThat(event).isNotNull();
+            assertThat(event.getKey()).isEqualTo("two");
+            assertThat(event.getNewValue()).isNull();
+            assertThat(node.get("two", null)).isNull();
+            assertThat(node.keys()).containsExactly("one");
+        }
+    }
+
+    @Test
+    public final void testSyncDropsKeyRemovedByOtherProcess() throws Exception {
+        final File dir = new File(baseDir, "user");
+        final PropertiesFilePreferences writer = new PropertiesFilePreferences(dir);
+        writer.node("a").put("one", "1");
+        writer.node("a").put("two", "2");
+        writer.flush();
+        final Preferences node = new PropertiesFilePreferences(dir).node("a");
+        assertThat(node.get("two", null)).isEqualTo("2");
+        node.put("three", "3");
+
+        writer.node("a").remove("two");
+        writer.flush();
+        node.sync();
+
+        assertThat(node.get("two", null)).isNull();
+        assertThat(node.get("one", null)).isEqualTo("1");
+        assertThat(node.get("three", null)).isEqualTo("3");
+    }
+
+    @Test
+    public final void testWatcherDoesNotCreateDirectory() throws Exception {
+        final File dir = new File(baseDir, "user");
+        try (final PreferencesWatcher watcher = new PreferencesWatcher()) {
+            final PropertiesFilePreferences root = new PropertiesFilePreferences(dir, null, watcher);
+            final Preferences node = root.node("a/b");
+            final BlockingQueue<PreferenceChangeEvent> events = new LinkedBlockingQueue<>();
+            node.addPreferenceChangeListener(events::add);
+            assertThat(new File(dir, "a")).doesNotExist();
+
+            // Created by another process
+            final PropertiesFilePreferences writer = new PropertiesFilePreferences(dir);
+            writer.node("a/b").put("one", "1");
+            writer.flush();
+
+            final PreferenceChangeEvent event = events.poll(10, TimeUnit.SECONDS);
+            assertThat(event).isNotNull();
+            assertThat(event.getKey()).isEqualTo("one");
+            assertThat(node.get("one", null)).isEqualTo("1");
+        }
+    }
+
+    @Test
+    public final void testWatcherStopsWithoutListeners() throws Exception {
+        final File dir = new File(baseDir, "user");
+        try (final PreferencesWatcher watcher = new PreferencesWatcher()) {
+            final PropertiesFilePreferences root = new PropertiesFilePreferences(dir, null, watcher);
+            final Preferences node = root.node("a");
+            final PreferenceChangeListener listener = event -> {
+            };
+            node.addPreferenceChangeListener(listener);
+            assertThat(watcher.getWatchedCount()).isEqualTo(1);
+
+            node.removePreferenceChangeListener(listener);
+
+            assertThat(watcher.getWatchedCount()).isEqualTo(0);
+        }
+    }
+
 }
 // CHECKSTYLE:ON
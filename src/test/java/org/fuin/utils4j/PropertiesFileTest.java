@@ -24,8 +24,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -63,6 +68,7 @@ public class PropertiesFileTest {
     }
 
     private void createPropertiesFile() throws IOException {
+        new File(testFile.getPath() + ".journal").delete();
         final String lf = System.getProperty("line.separator");
         final FileWriter fw = new FileWriter(testFile);
         try {
@@ -138,6 +144,43 @@ public class PropertiesFileTest {
         assertThat(it.next()).isEqualTo("C");
     }
 
+    @Test
+    public final void testKeyIteratorRemove() {
+        propFile.put("A", "1");
+        propFile.put("B", "2");
+        propFile.put("C", "3");
+        final Iterator<String> it = propFile.keyIterator();
+        assertThat(it.next()).isEqualTo("A");
+        assertThat(it.next()).isEqualTo("B");
+        it.remove();
+        assertThat(propFile.get("B")).isNull();
+        assertThat(propFile.getKeyList()).containsExactly("A", "C");
+        propFile.put("B", "x");
+        assertThat(propFile.getKeyList()).containsExactly("A", "C", "B");
+    }
+
+    @Test
+    public final void testManyPropertiesKeepOrder() throws IOException, MergeException, LockingFailedException {
+        final int count = 20000;
+        propFile.load();
+        for (int i = count; i > 0; i--) {
+            propFile.put("key" + i, "value" + i);
+        }
+        propFile.remove("B");
+        propFile.save(false);
+
+        final PropertiesFile loaded = new PropertiesFile(testFile);
+        loaded.load();
+        assertThat(loaded.size()).isEqualTo(count + 2);
+        final List<String> keys = loaded.getKeyList();
+        assertThat(keys.get(0)).isEqualTo("A");
+        assertThat(keys.get(1)).isEqualTo("C");
+        assertThat(keys.get(2)).isEqualTo("key" + count);
+        assertThat(keys.get(count + 1)).isEqualTo("key1");
+        assertThat(loaded.get("key4711")).isEqualTo("value4711");
+        assertThat(loaded.isRemoved("B")).isTrue();
+    }
+
     @Test
     public final void testLoad() throws IOException, LockingFailedException, MergeException {
         propFile.load();
@@ -189,6 +232,67 @@ public class PropertiesFileTest {
         TestHelper.assertPropertiesEqual(new File(dir, "PropertiesFileTestD.properties"), testFile);
     }
 
+    @Test
+    public final void testLoadUnchangedFileKeepsMemoryChanges() throws IOException, MergeException, LockingFailedException {
+        propFile.load();
+        propFile.put("A", "a");
+        propFile.put("D", "4");
+        propFile.remove("B");
+        propFile.load();
+        assertThat(propFile.getStatus("A")).isEqualTo("CHG");
+        assertThat(propFile.getStatus("B")).isEqualTo("DEL");
+        assertThat(propFile.getStatus("C")).isEqualTo("---");
+        assertThat(propFile.getStatus("D")).isEqualTo("NEW");
+        propFile.save(false);
+        propFile.save(false);
+        final Properties props = PropertiesUtils.loadProperties(testFile);
+        assertThat(props.getProperty("A")).isEqualTo("a");
+        assertThat(props.getProperty("B")).isNull();
+        assertThat(props.getProperty("D")).isEqualTo("4");
+    }
+
+    @Test
+    public final void testLoadDetectsChangeWithSameSizeAndTime() throws IOException, MergeException, LockingFailedException {
+        propFile.load();
+        final long lastModified = testFile.lastModified();
+
+        // Change a value without changing size or modification time
+        final String lf = System.getProperty("line.separator");
+        try (final FileWriter fw = new FileWriter(testFile)) {
+            fw.write("# Test" + lf);
+            fw.write("A=9" + lf);
+            fw.write("B=2" + lf);
+            fw.write("C=3" + lf);
+        }
+        assertThat(testFile.setLastModified(lastModified)).isTrue();
+
+        propFile.load();
+        assertThat(propFile.get("A")).isEqualTo("9");
+    }
+
+    @Test
+    public final void testLoadAfterClear() throws IOException, MergeException, LockingFailedException {
+        propFile.load();
+        propFile.clear();
+        propFile.load();
+        assertThat(propFile.size()).isEqualTo(3);
+        assertThat(propFile.get("A")).isEqualTo("1");
+    }
+
+    @Test
+    public final void testLoadDropsPropertiesRemovedFromFile() throws IOException, MergeException, LockingFailedException {
+        propFile.load();
+        propFile.put("A", "a");
+        final PropertiesFile other = new PropertiesFile(testFile);
+        other.load();
+        other.remove("A");
+        other.remove("B");
+        other.save(false);
+        propFile.load();
+        assertThat(propFile.getKeyList()).containsExactly("A", "C");
+        assertThat(propFile.getStatus("A")).isEqualTo("CHG");
+    }
+
     @Test
     public final void testConcurrentAdd() throws IOException, MergeException, LockingFailedException {
 
@@ -252,5 +356,260 @@ public class PropertiesFileTest {
 
     }
 
+    @Test
+    public final void testJournalSaveOnlyAppends() throws IOException, MergeException, LockingFailedException {
+
+        // PREPARE
+        final byte[] before = Files.readAllBytes(testFile.toPath());
+        propFile.setJournalMode(true);
+        propFile.load();
+        propFile.put("A", "a");
+        propFile.remove("B");
+        propFile.put("D", "4");
+
+        // TEST
+        propFile.save(false);
+
+        // VERIFY
+        assertThat(Files.readAllBytes(testFile.toPath())).isEqualTo(before);
+        assertThat(propFile.getJournalFile()).exists();
+        assertThat(propFile.getKeyList()).containsExactly("A", "C", "D");
+        final PropertiesFile other = new PropertiesFile(testFile);
+        other.load();
+        assertThat(other.getKeyList()).containsExactly("A", "C", "D");
+        assertThat(other.get("A")).isEqualTo("a");
+        assertThat(other.get("D")).isEqualTo("4");
+        assertThat(other.getStatus("A")).isEqualTo("---");
+
+    }
+
+    @Test
+    public final void testJournalConcurrentChanges() throws IOException, MergeException, LockingFailedException {
+
+        // PREPARE
+        final PropertiesFile propFile1 = new PropertiesFile(testFile);
+        propFile1.setJournalMode(true);
+        propFile1.load();
+        final PropertiesFile propFile2 = new PropertiesFile(testFile);
+        propFile2.setJournalMode(true);
+        propFile2.load();
+
+        // TEST
+        propFile1.put("A", "a");
+        propFile1.save(false);
+        propFile2.put("B", "b");
+        propFile2.remove("C");
+        propFile2.save(false);
+        propFile1.load();
+
+        // VERIFY
+        assertThat(propFile1.toProperties()).isEqualTo(propFile2.toProperties());
+        assertThat(propFile1.get("A")).isEqualTo("a");
+        assertThat(propFile1.get("B")).isEqualTo("b");
+        assertThat(propFile1.isRemoved("C")).isTrue();
+
+    }
+
+    @Test
+    public final void testJournalMergeError() throws IOException, MergeException, LockingFailedException {
+
+        // PREPARE
+        final PropertiesFile propFile1 = new PropertiesFile(testFile);
+        propFile1.setJournalMode(true);
+        propFile1.load();
+        final PropertiesFile propFile2 = new PropertiesFile(testFile);
+        propFile2.setJournalMode(true);
+        propFile2.load();
+        propFile1.put("A", "a");
+        propFile1.remove("B");
+        propFile1.save(false);
+        propFile2.put("A", "x");
+        propFile2.put("B", "y");
+
+        // TEST
+        try {
+            propFile2.save(false);
+            fail("Expected " + MergeException.class.getName());
+        } catch (final MergeException ex) {
+
+            // VERIFY
+            final Problem[] problems = ex.getProblems();
+            assertThat(problems.length).isEqualTo(2);
+            assertThat(problems[0].getProp().getKey()).isEqualTo("A");
+            assertThat(problems[0].getFileProp().getValue()).isEqualTo("a");
+            assertThat(problems[1].getProp().getKey()).isEqualTo("B");
+            assertThat(problems[1].getFileProp().getValue()).isNull();
+        }
+
+    }
+
+    @Test
+    public final void testJournalCompaction() throws IOException, MergeException, LockingFailedException {
+
+        // PREPARE
+        final PropertiesFile reader = new PropertiesFile(testFile);
+        reader.load();
+        propFile.setJournalMode(true);
+        propFile.setJournalMaxSize(40);
+        propFile.load();
+
+        // TEST
+        propFile.put("A", "a");
+        propFile.save(false);
+        final long journalSize = propFile.getJournalFile().length();
+        propFile.put("B", "b");
+        propFile.put("D", "4");
+        propFile.save(false);
+
+        // VERIFY
+        assertThat(journalSize).isGreaterThan(0);
+        assertThat(propFile.getJournalFile().length()).isEqualTo(0);
+        final Properties props = new Properties();
+        props.load(new StringReader(new String(Files.readAllBytes(testFile.toPath()), StandardCharsets.UTF_8)));
+        assertThat(props).hasSize(4);
+        assertThat(props.getProperty("A")).isEqualTo("a");
+        assertThat(props.getProperty("B")).isEqualTo("b");
+        reader.load();
+        assertThat(reader.toProperties()).isEqualTo(props);
+
+    }
+
+    @Test
+    public final void testSaveWithoutJournalModeCompacts() throws IOException, MergeException, LockingFailedException {
+
+        // PREPARE
+        propFile.setJournalMode(true);
+        propFile.load();
+        propFile.put("A", "a");
+        propFile.save(false);
+        final PropertiesFile other = new PropertiesFile(testFile);
+        other.load();
+        other.put("D", "4");
+
+        // TEST
+        other.save(false);
+
+        // VERIFY
+        assertThat(other.getJournalFile().length()).isEqualTo(0);
+        propFile.put("B", "b");
+        propFile.save(false);
+        final PropertiesFile check = new PropertiesFile(testFile);
+        check.load();
+        assertThat(check.get("A")).isEqualTo("a");
+        assertThat(check.get("B")).isEqualTo("b");
+        assertThat(check.get("D")).isEqualTo("4");
+
+    }
+
+    @Test
+    public final void testJournalIgnoresIncompleteRecord() throws IOException, MergeException, LockingFailedException {
+
+        // PREPARE
+        propFile.setJournalMode(true);
+        propFile.load();
+        propFile.put("A", "a");
+        propFile.save(false);
+        try (final RandomAccessFile journal = new RandomAccessFile(propFile.getJournalFile(), "rw")) {
+            journal.seek(journal.length());
+            journal.write("+X=9".getBytes(StandardCharsets.UTF_8));
+        }
+
+        // TEST
+        final PropertiesFile other = new PropertiesFile(testFile);
+        other.setJournalMode(true);
+        other.load();
+        other.put("B", "b");
+        other.save(false);
+
+        // VERIFY
+        assertThat(other.get("X")).isNull();
+        final PropertiesFile check = new PropertiesFile(testFile);
+        check.load();
+        assertThat(check.getKeyList()).containsExactly("A", "B", "C");
+        assertThat(check.get("B")).isEqualTo("b");
+
+    }
+
+    @Test
+    public final void testAtomicSaveReplacesFile() throws IOException, MergeException, LockingFailedException {
+
+        // PREPARE
+        final byte[] before = Files.readAllBytes(testFile.toPath());
+        propFile.setAtomicSave(true);
+        propFile.load();
+        propFile.put("A", "a");
+
+        // TEST
+        try (final FileInputStream oldIn = new FileInputStream(testFile)) {
+            propFile.save(false);
+
+            // VERIFY
+            assertThat(oldIn.readAllBytes()).isEqualTo(before);
+        }
+        assertThat(propFile.getLockFile()).exists();
+        final String[] temps = testFile.getParentFile().list((dir, name) -> name.startsWith("." + testFile.getName()));
+        assertThat(temps).isEmpty();
+        final PropertiesFile check = new PropertiesFile(testFile);
+        check.setAtomicSave(true);
+        check.load();
+        assertThat(check.toProperties()).isEqualTo(propFile.toProperties());
+        assertThat(check.get("A")).isEqualTo("a");
+
+    }
+
+    @Test
+    public final void testAtomicSaveConcurrentAdd() throws IOException, MergeException, LockingFailedException {
+
+        // PREPARE
+        final PropertiesFile propFile1 = new PropertiesFile(testFile);
+        propFile1.setAtomicSave(true);
+        propFile1.load();
+        propFile1.put("A", "a");
+        propFile1.put("B", "b");
+        propFile1.put("C", "c");
+        final PropertiesFile propFile2 = new PropertiesFile(testFile);
+        propFile2.setAtomicSave(true);
+        propFile2.load();
+        propFile2.put("A.1", "11");
+        propFile2.put("B.1", "22");
+        propFile2.put("C.1", "33");
+
+        // TEST
+        propFile1.save("Test", true);
+        propFile2.save("Test", true);
+
+        // VERIFY
+        TestHelper.assertPropertiesEqual(new File(dir, "PropertiesFileTestE.properties"), testFile);
+
+    }
+
+    @Test
+    public final void testAtomicSaveWithJournal() throws IOException, MergeException, LockingFailedException {
+
+        // PREPARE
+        propFile.setAtomicSave(true);
+        propFile.setJournalMode(true);
+        propFile.setJournalMaxSize(40);
+        propFile.load();
+        propFile.put("A", "a");
+        propFile.save(false);
+        final PropertiesFile other = new PropertiesFile(testFile);
+        other.setAtomicSave(true);
+        other.load();
+        assertThat(other.get("A")).isEqualTo("a");
+
+        // TEST
+        propFile.put("B", "b");
+        propFile.put("D", "4");
+        propFile.save(false);
+
+        // VERIFY
+        assertThat(propFile.getJournalFile().length()).isEqualTo(0);
+        other.load();
+        assertThat(other.toProperties()).isEqualTo(propFile.toProperties());
+        assertThat(other.get("D")).isEqualTo("4");
+
+    }
+
 }
 // CHECKSTYLE:ON
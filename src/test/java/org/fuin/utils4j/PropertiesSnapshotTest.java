@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.data.MapEntry.entry;
+
+/**
+ * Test for {@link PropertiesSnapshot}.
+ */
+public class PropertiesSnapshotTest {
+
+    // CHECKSTYLE:OFF
+
+    private File dir;
+
+    private File snapshotFile;
+
+    @BeforeEach
+    public final void beforeMethod() throws IOException {
+        dir = new File(Utils4J.getTempDir(), "PropertiesSnapshotTest");
+        FileUtils.deleteDirectory(dir);
+        dir.mkdirs();
+        snapshotFile = new File(dir, "test.snapshot");
+    }
+
+    @Test
+    public void testWriteProperties() throws Exception {
+
+        // PREPARE
+        final Properties props = new Properties();
+        props.setProperty("b", "2");
+        props.setProperty("a", "1");
+        props.setProperty("ä€", "öü\nx=y");
+        props.setProperty("empty", "");
+        props.setProperty("Z", "upper");
+
+        // TEST
+        PropertiesSnapshot.write(snapshotFile, props);
+        final PropertiesSnapshot testee = new PropertiesSnapshot(snapshotFile);
+
+        // VERIFY
+        assertThat(testee.size()).isEqualTo(5);
+        assertThat(testee.getKeyList()).containsExactly("Z", "a", "b", "empty", "ä€");
+        assertThat(testee.get("a")).isEqualTo("1");
+        assertThat(testee.get("ä€")).isEqualTo("öü\nx=y");
+        assertThat(testee.get("empty")).isEqualTo("");
+        assertThat(testee.get("c")).isNull();
+        assertThat(testee.get("")).isNull();
+        assertThat(testee.containsKey("Z")).isTrue();
+        assertThat(testee.containsKey("z")).isFalse();
+        assertThat(testee.toMap()).containsOnly(entry("a", "1"), entry("b", "2"), entry("ä€", "öü\nx=y"), entry("empty", ""),
+                entry("Z", "upper"));
+        assertThat(dir.list()).containsExactly("test.snapshot");
+
+    }
+
+    @Test
+    public void testWritePropertiesFile() throws Exception {
+
+        // PREPARE
+        final File textFile = new File(dir, "test.properties");
+        final PropertiesFile propFile = new PropertiesFile(textFile);
+        for (int i = 0; i < 1000; i++) {
+            propFile.put("key" + i, "value" + i);
+        }
+        propFile.remove("key500");
+
+        // TEST
+        PropertiesSnapshot.write(snapshotFile, propFile);
+        final PropertiesSnapshot testee = new PropertiesSnapshot(snapshotFile);
+
+        // VERIFY
+        assertThat(testee.size()).isEqualTo(999);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(testee.get("key" + i)).isEqualTo(i == 500 ? null : "value" + i);
+        }
+
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+
+        // TEST
+        PropertiesSnapshot.write(snapshotFile, new Properties());
+        final PropertiesSnapshot testee = new PropertiesSnapshot(snapshotFile);
+
+        // VERIFY
+        assertThat(testee.size()).isEqualTo(0);
+        assertThat(testee.get("a")).isNull();
+        assertThat(testee.getKeyList()).isEmpty();
+
+    }
+
+    @Test
+    public void testRegenerateIfTextFileChanged() throws Exception {
+
+        // PREPARE
+        final File textFile = new File(dir, "test.properties");
+        FileUtils.writeStringToFile(textFile, "a=1\\u00e4\n", StandardCharsets.ISO_8859_1);
+        final PropertiesSnapshot first = PropertiesSnapshot.of(textFile, snapshotFile);
+        assertThat(first.get("a")).isEqualTo("1ä");
+        assertThat(snapshotFile.lastModified()).isEqualTo(textFile.lastModified());
+
+        // TEST
+        FileUtils.writeStringToFile(textFile, "a=2\n", StandardCharsets.ISO_8859_1);
+        textFile.setLastModified(textFile.lastModified() + 2000);
+        final PropertiesSnapshot second = PropertiesSnapshot.of(textFile, snapshotFile);
+
+        // VERIFY
+        assertThat(second.get("a")).isEqualTo("2");
+        assertThat(first.get("a")).isEqualTo("1ä");
+
+    }
+
+    @Test
+    public void testNotASnapshot() throws Exception {
+
+        // PREPARE
+        FileUtils.writeStringToFile(snapshotFile, "a=1\n", StandardCharsets.UTF_8);
+
+        // TEST & VERIFY
+        assertThatThrownBy(() -> new PropertiesSnapshot(snapshotFile)).isInstanceOf(IOException.class)
+                .hasMessageContaining("not a properties snapshot");
+
+    }
+
+    // CHECKSTYLE:ON
+
+}
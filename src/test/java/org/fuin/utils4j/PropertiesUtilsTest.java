@@ -23,7 +23,12 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -145,5 +150,42 @@ public class PropertiesUtilsTest {
         }).isInstanceOf(IllegalArgumentException.class)
           .hasMessageContaining("The argument 'srcUrl' is not a valid URL");
     }
+
+    @Test
+    public final void testLoadPropertiesSources() throws IOException {
+        final File override = File.createTempFile(this.getClass().getSimpleName() + "-", ".properties");
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Files.write(override.toPath(), "two=X\nfour=4\n".getBytes(StandardCharsets.ISO_8859_1));
+            final PropertiesSource classpath = PropertiesSource.of(PropertiesUtilsTest.class, "test.properties");
+            final PropertiesSource url = PropertiesSource.of(TEST_PROPERTIES_FILE.toURI().toURL());
+            final PropertiesSource file = PropertiesSource.of(override);
+
+            final PropertiesLoadResult result = PropertiesUtils.loadProperties(Arrays.asList(classpath, file, url, file), executor);
+
+            // Last source wins
+            final Properties props = result.getProperties();
+            assertThat(props).hasSize(4);
+            assertThat(props.get("two")).isEqualTo("X");
+            assertThat(props.get("four")).isEqualTo("4");
+            assertThat(result.getSources()).containsExactly(classpath, file, url, file);
+            assertThat(result.getDurations()).hasSize(4);
+            assertThat(result.getSlowest()).isNotNull();
+            assertThat(classpath.getName()).isEqualTo("classpath:org/fuin/utils4j/test.properties");
+        } finally {
+            executor.shutdown();
+            override.delete();
+        }
+    }
+
+    @Test
+    public final void testLoadPropertiesSourcesFailure() {
+        final PropertiesSource missing = PropertiesSource.of(PropertiesUtilsTest.class, "DoesNotExist.properties");
+        assertThatThrownBy(() -> {
+            PropertiesUtils.loadProperties(Arrays.asList(PropertiesSource.of(TEST_PROPERTIES_FILE), missing));
+        }).isInstanceOf(RuntimeException.class)
+          .hasMessageContaining(missing.getName())
+          .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
 }
 // CHECKSTYLE:ON
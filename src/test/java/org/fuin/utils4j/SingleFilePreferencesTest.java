@@ -0,0 +1,212 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.prefs.Preferences;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for {@link SingleFilePreferences}.
+ */
+public class SingleFilePreferencesTest {
+
+    // CHECKSTYLE:OFF
+
+    private static File baseDir;
+
+    private File file;
+
+    @BeforeAll
+    public static void beforeClass() {
+        baseDir = new File(Utils4J.getTempDir(), "test-single-file-pref");
+    }
+
+    @BeforeEach
+    public final void beforeMethod() throws IOException {
+        FileUtils.deleteDirectory(baseDir);
+        baseDir.mkdirs();
+        file = new File(baseDir, "prefs.properties");
+    }
+
+    @Test
+    public void testWholeTreeInOneFile() throws Exception {
+
+        // PREPARE
+        final SingleFilePreferences root = new SingleFilePreferences(file);
+        root.put("r", "0");
+        final Preferences a = root.node("a");
+        a.put("one", "1");
+        a.put("x=y", "line1\nline2");
+        final Preferences b = root.node("a/b");
+        b.put("two", "2");
+        b.put("", "empty");
+        root.node("c");
+
+        // TEST
+        root.flush();
+
+        // VERIFY
+        assertThat(baseDir.list()).containsExactly("prefs.properties");
+        final SingleFilePreferences reloaded = new SingleFilePreferences(file);
+        assertThat(reloaded.keys()).containsExactly("r");
+        assertThat(reloaded.childrenNames()).containsExactlyInAnyOrder("a", "c");
+        assertThat(reloaded.node("a").childrenNames()).containsExactly("b");
+        assertThat(reloaded.node("a").keys()).containsExactlyInAnyOrder("one", "x=y");
+        assertThat(reloaded.node("a").get("x=y", null)).isEqualTo("line1\nline2");
+        assertThat(reloaded.node("a/b").get("two", null)).isEqualTo("2");
+        assertThat(reloaded.node("a/b").get("", null)).isEqualTo("empty");
+        assertThat(reloaded.node("c").keys()).isEmpty();
+
+    }
+
+    @Test
+    public void testRemoveNode() throws Exception {
+
+        // PREPARE
+        final SingleFilePreferences root = new SingleFilePreferences(file);
+        root.node("a").put("one", "1");
+        root.node("a/b").put("two", "2");
+        root.node("ab").put("three", "3");
+        root.flush();
+
+        // TEST
+        root.node("a").removeNode();
+        root.flush();
+
+        // VERIFY
+        final SingleFilePreferences reloaded = new SingleFilePreferences(file);
+        assertThat(reloaded.childrenNames()).containsExactly("ab");
+        assertThat(reloaded.nodeExists("a")).isFalse();
+        assertThat(reloaded.node("ab").get("three", null)).isEqualTo("3");
+        final PropertiesFile propFile = new PropertiesFile(file);
+        propFile.load();
+        assertThat(propFile.getKeyList()).containsExactly("ab/", "ab//three");
+
+    }
+
+    @Test
+    public void testRemoveUnsavedKey() throws Exception {
+
+        // PREPARE
+        final SingleFilePreferences root = new SingleFilePreferences(file);
+        final Preferences a = root.node("a");
+        a.put("one", "1");
+        a.put("two", "2");
+
+        // TEST
+        a.remove("two");
+        root.flush();
+
+        // VERIFY
+        assertThat(a.keys()).containsExactly("one");
+        final PropertiesFile propFile = new PropertiesFile(file);
+        propFile.load();
+        assertThat(propFile.getKeyList()).containsExactly("a/", "a//one");
+
+    }
+
+    @Test
+    public void testRemoveUnsavedNode() throws Exception {
+
+        // PREPARE
+        final SingleFilePreferences root = new SingleFilePreferences(file);
+        root.node("a").put("one", "1");
+        root.node("b").put("two", "2");
+
+        // TEST
+        root.node("b").removeNode();
+        root.flush();
+
+        // VERIFY
+        assertThat(root.childrenNames()).containsExactly("a");
+        final PropertiesFile propFile = new PropertiesFile(file);
+        propFile.load();
+        assertThat(propFile.getKeyList()).containsExactly("a/", "a//one");
+        assertThat(new SingleFilePreferences(file).nodeExists("b")).isFalse();
+
+    }
+
+    @Test
+    public void testFlushWithoutChangesDoesNotWrite() throws Exception {
+
+        // PREPARE
+        final SingleFilePreferences root = new SingleFilePreferences(file);
+        root.node("a").put("one", "1");
+        root.flush();
+        final long lastModified = file.lastModified();
+        file.setLastModified(lastModified - 10000);
+
+        // TEST
+        root.node("a").flush();
+        root.flush();
+
+        // VERIFY
+        assertThat(file.lastModified()).isEqualTo(lastModified - 10000);
+
+    }
+
+    @Test
+    public void testSync() throws Exception {
+
+        // PREPARE
+        final SingleFilePreferences first = new SingleFilePreferences(file);
+        first.node("a").put("one", "1");
+        first.flush();
+        final SingleFilePreferences second = new SingleFilePreferences(file);
+        assertThat(second.node("a").get("one", null)).isEqualTo("1");
+        first.node("a").put("one", "2");
+        first.flush();
+
+        // TEST
+        second.sync();
+
+        // VERIFY
+        assertThat(second.node("a").get("one", null)).isEqualTo("2");
+
+    }
+
+    @Test
+    public void testFactory() throws Exception {
+
+        // PREPARE
+        final SingleFilePreferencesFactory factory = new SingleFilePreferencesFactory(new File(baseDir, "system.properties").toString(),
+                file.toString());
+
+        // TEST
+        final Preferences userRoot = factory.userRoot();
+        userRoot.node("x").put("y", "z");
+        userRoot.flush();
+
+        // VERIFY
+        assertThat(factory.userRoot()).isSameAs(userRoot);
+        assertThat(((SingleFilePreferences) userRoot).getFile()).isEqualTo(file);
+        assertThat(new SingleFilePreferences(file).node("x").get("y", null)).isEqualTo("z");
+
+    }
+
+    // CHECKSTYLE:ON
+
+}
@@ -24,6 +24,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.net.MalformedURLException;
@@ -37,7 +38,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -370,6 +376,160 @@ public class Utils4JTest {
 
     }
 
+    @Test
+    public final void testUnzipAsync() throws Exception {
+        final File tmpDir = new File(Utils4J.getTempDir(), "unzip-async");
+        if (tmpDir.exists()) {
+            FileUtils.deleteDirectory(tmpDir);
+        }
+        assertThat(tmpDir.mkdir()).isTrue();
+        try {
+
+            // Execute method
+            final CompletableFuture<Void> future = Utils4J.unzipAsync(ZIP_FILE, tmpDir, null, Runnable::run);
+
+            // Postconditions
+            assertThat(future.get(10, TimeUnit.SECONDS)).isNull();
+            assertThat(new File(tmpDir, "readme.txt")).exists();
+            assertThat(new File(tmpDir, "one/1.txt")).exists();
+            assertThat(new File(tmpDir, "two/2.txt")).exists();
+            assertThat(new File(tmpDir, "three/3.txt")).exists();
+
+        } finally {
+            FileUtils.deleteDirectory(tmpDir);
+        }
+    }
+
+    @Test
+    public final void testUnzipAsyncError() throws Exception {
+        final File tmpDir = new File(Utils4J.getTempDir(), "unzip-async-error");
+        if (tmpDir.exists()) {
+            FileUtils.deleteDirectory(tmpDir);
+        }
+        assertThat(tmpDir.mkdir()).isTrue();
+        final AtomicReference<Throwable> thrown = new AtomicReference<>();
+        try {
+
+            // Execute method
+            final CompletableFuture<Void> future = Utils4J.unzipAsync(ZIP_FILE, tmpDir, (in, entry, destFile) -> {
+                throw new StackOverflowError();
+            }, runnable -> {
+                try {
+                    runnable.run();
+                } catch (final Error err) {
+                    thrown.set(err);
+                }
+            });
+
+            // Postconditions
+            assertThat(future.isCompletedExceptionally()).isTrue();
+            assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(StackOverflowError.class);
+            assertThat(thrown.get()).isInstanceOf(StackOverflowError.class);
+
+        } finally {
+            FileUtils.deleteDirectory(tmpDir);
+        }
+    }
+
+    @Test
+    public final void testUnzipAsyncCancelInsideEntry() throws Exception {
+        final File tmpDir = new File(Utils4J.getTempDir(), "unzip-async-cancel");
+        if (tmpDir.exists()) {
+            FileUtils.deleteDirectory(tmpDir);
+        }
+        assertThat(tmpDir.mkdir()).isTrue();
+        final AtomicReference<CompletableFuture<Void>> futureRef = new AtomicReference<>();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        try {
+
+            // Cancel the future while the first entry is read
+            final CompletableFuture<Void> future = Utils4J.unzipAsync(ZIP_FILE, tmpDir, (in, entry, destFile) -> new FilterInputStream(in) {
+                @Override
+                public int read(final byte[] b, final int off, final int len) throws IOException {
+                    final int count = super.read(b, off, len);
+                    futureRef.get().cancel(false);
+                    return count;
+                }
+            }, runnable -> new Thread(() -> {
+                try {
+                    started.await();
+                } catch (final InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+                runnable.run();
+                finished.countDown();
+            }).start());
+            futureRef.set(future);
+            started.countDown();
+
+            // Postconditions
+            assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS)).isInstanceOf(CancellationException.class);
+            assertThat(future.isCancelled()).isTrue();
+            assertThat(finished.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(FileUtils.listFiles(tmpDir, null, true)).isEmpty();
+
+        } finally {
+            FileUtils.deleteDirectory(tmpDir);
+        }
+    }
+
+    @Test
+    public final void testZipDirAsync() throws Exception {
+        final File tmpDir = new File(Utils4J.getTempDir(), "zip-async");
+        if (tmpDir.exists()) {
+            FileUtils.deleteDirectory(tmpDir);
+        }
+        final File srcDir = new File(tmpDir, "src");
+        final File destDir = new File(tmpDir, "dest");
+        assertThat(srcDir.mkdirs()).isTrue();
+        assertThat(destDir.mkdirs()).isTrue();
+        final File destFile = new File(tmpDir, "test.zip");
+        try {
+            Utils4J.unzip(ZIP_FILE, srcDir);
+
+            // Execute method
+            final CompletableFuture<Void> future = Utils4J.zipDirAsync(srcDir, null, "abc", destFile, null);
+
+            // Postconditions
+            assertThat(future.get(10, TimeUnit.SECONDS)).isNull();
+            Utils4J.unzip(destFile, destDir);
+            assertThat(new File(destDir, "abc/readme.txt")).exists();
+            assertThat(new File(destDir, "abc/one/1.txt")).exists();
+
+        } finally {
+            FileUtils.deleteDirectory(tmpDir);
+        }
+    }
+
+    @Test
+    public final void testZipDirAsyncCanceled() throws Exception {
+        final File tmpDir = new File(Utils4J.getTempDir(), "zip-async-cancel");
+        if (tmpDir.exists()) {
+            FileUtils.deleteDirectory(tmpDir);
+        }
+        final File srcDir = new File(tmpDir, "src");
+        assertThat(srcDir.mkdirs()).isTrue();
+        final File destFile = new File(tmpDir, "test.zip");
+        final List<Runnable> tasks = new ArrayList<>();
+        try {
+            Utils4J.unzip(ZIP_FILE, srcDir);
+
+            // Cancel before the task starts
+            final CompletableFuture<Void> future = Utils4J.zipDirAsync(srcDir, null, "abc", destFile, tasks::add);
+            assertThat(future.cancel(false)).isTrue();
+            tasks.forEach(Runnable::run);
+
+            // Postconditions
+            assertThat(future.isCancelled()).isTrue();
+            assertThat(destFile).doesNotExist();
+
+        } finally {
+            FileUtils.deleteDirectory(tmpDir);
+        }
+    }
+
     @Test
     public final void testZip() throws IOException {
 
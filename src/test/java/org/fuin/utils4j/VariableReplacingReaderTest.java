@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test for {@link VariableReplacingReader}.
+ */
+public class VariableReplacingReaderTest {
+
+    // CHECKSTYLE:OFF
+
+    private static final Map<String, String> vars = new HashMap<>();
+
+    private static final String[] INPUTS = new String[] { "", "one two three", "${one}", " ${one}", "${one} ", " ${one} ",
+            " ${one} ${two} ${3} ", "${one}${two}${3}", "${xyz}", "${one}${xyz}", "${xyz}${two}", "${one}${xyz}${two}", "${one}${two", "${",
+            "$", "}", "${}", "a${one${two}b", "$${one}}", "${one}${", "$$$", "a$b$", "${one}$" };
+
+    @BeforeAll
+    public static void beforeClass() {
+        vars.put("one", "1");
+        vars.put("two", "2");
+        vars.put("3", "three");
+        vars.put("", "empty");
+    }
+
+    @Test
+    public void testSameResultAsReplaceVars() throws IOException {
+        for (final String input : INPUTS) {
+            assertThat(readAll(new VariableReplacingReader(new StringReader(input), vars), 100))
+                    .isEqualTo(Utils4J.replaceVars(input, vars));
+        }
+    }
+
+    @Test
+    public void testVariablesSpanningReads() throws IOException {
+        for (final String input : INPUTS) {
+            for (int size = 1; size < 4; size++) {
+                assertThat(readAll(new VariableReplacingReader(new OneCharReader(input), vars), size))
+                        .isEqualTo(Utils4J.replaceVars(input, vars));
+            }
+        }
+    }
+
+    @Test
+    public void testNullVars() throws IOException {
+        assertThat(readAll(new VariableReplacingReader(new StringReader("a${one}b"), null), 10)).isEqualTo("a${one}b");
+    }
+
+    @Test
+    public void testMaxKeyLength() throws IOException {
+
+        // PREPARE
+        final Map<String, String> map = new HashMap<>();
+        map.put("abc", "X");
+        map.put("a", "Y");
+
+        // TEST & VERIFY
+        assertThat(readAll(new VariableReplacingReader(new StringReader("${abc}"), map, 3), 10)).isEqualTo("X");
+        assertThat(readAll(new VariableReplacingReader(new StringReader("${abcd}${a}"), map, 3), 10)).isEqualTo("${abcd}Y");
+        assertThat(readAll(new VariableReplacingReader(new StringReader("${abcd${a}"), map, 3), 10)).isEqualTo("${abcd${a}");
+
+    }
+
+    @Test
+    public void testIllegalMaxKeyLength() {
+        assertThatThrownBy(() -> new VariableReplacingReader(new StringReader(""), vars, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testLargeInput() throws IOException {
+
+        // PREPARE
+        final String line = "Value=${one} ${two} ${unknown}\n";
+        final int lines = 100000;
+        final Reader in = new Reader() {
+            private int pos = 0;
+
+            @Override
+            public int read(final char[] cbuf, final int off, final int len) {
+                final int max = line.length() * lines;
+                if (pos == max) {
+                    return -1;
+                }
+                final int n = Math.min(len, max - pos);
+                for (int i = 0; i < n; i++) {
+                    cbuf[off + i] = line.charAt((pos + i) % line.length());
+                }
+                pos += n;
+                return n;
+            }
+
+            @Override
+            public void close() {
+                // Nothing to do
+            }
+        };
+
+        // TEST
+        long count = 0;
+        try (final Reader testee = new VariableReplacingReader(in, vars)) {
+            final char[] buf = new char[1000];
+            int len;
+            while ((len = testee.read(buf)) != -1) {
+                count += len;
+            }
+        }
+
+        // VERIFY
+        assertThat(count).isEqualTo((long) "Value=1 2 ${unknown}\n".length() * lines);
+
+    }
+
+    private static String readAll(final Reader reader, final int bufSize) throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        try (final Reader in = reader) {
+            final char[] buf = new char[bufSize];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                sb.append(buf, 0, len);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns at most one character per read.
+     */
+    private static final class OneCharReader extends Reader {
+
+        private final String str;
+
+        private int pos;
+
+        public OneCharReader(final String str) {
+            this.str = str;
+        }
+
+        @Override
+        public int read(final char[] cbuf, final int off, final int len) {
+            if (pos == str.length()) {
+                return -1;
+            }
+            cbuf[off] = str.charAt(pos++);
+            return 1;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to do
+        }
+
+    }
+
+    // CHECKSTYLE:ON
+
+}
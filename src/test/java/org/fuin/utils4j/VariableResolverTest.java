@@ -21,8 +21,11 @@ import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.data.MapEntry.entry;
 import static org.fuin.utils4j.VariableResolver.references;
 
@@ -188,6 +191,105 @@ public class VariableResolverTest {
 
     }
 
+    @Test
+    public void testDifferentDepthReferences() {
+
+        // PREPARE
+        final Map<String, String> vars = new HashMap<>();
+        vars.put("a", "${b}-${d}");
+        vars.put("b", "${c}");
+        vars.put("c", "${d}");
+        vars.put("d", "4");
+
+        // TEST
+        final VariableResolver testee = new VariableResolver(vars);
+
+        // VERIFY
+        assertThat(testee.getDepth()).contains(entry("a", 3), entry("b", 2), entry("c", 1), entry("d", 0));
+        assertThat(testee.getResolved()).contains(entry("a", "4-4"), entry("b", "4"), entry("c", "4"), entry("d", "4"));
+
+    }
+
+    @Test
+    public void testUnknownReferenceDepth() {
+
+        // PREPARE
+        final Map<String, String> vars = new HashMap<>();
+        vars.put("a", "${x}");
+
+        // TEST
+        final VariableResolver testee = new VariableResolver(vars);
+
+        // VERIFY
+        assertThat(testee.getDepth()).contains(entry("a", 1), entry("x", 0));
+        assertThat(testee.getResolved()).hasSize(1);
+        assertThat(testee.getResolved()).contains(entry("a", "${x}"));
+
+    }
+
+    @Test
+    public void testCycleSelf() {
+
+        // PREPARE
+        final Map<String, String> vars = new HashMap<>();
+        vars.put("a", "${a}");
+
+        // TEST & VERIFY
+        assertThatThrownBy(() -> new VariableResolver(vars)).isInstanceOf(IllegalStateException.class).hasMessage("Cycle: a > a");
+
+    }
+
+    @Test
+    public void testLongChain() {
+
+        // PREPARE
+        final int max = 100000;
+        final Map<String, String> vars = new HashMap<>();
+        vars.put("v0", "x");
+        for (int i = 1; i < max; i++) {
+            vars.put("v" + i, "${v" + (i - 1) + "}");
+        }
+
+        // TEST
+        final VariableResolver testee = new VariableResolver(vars);
+
+        // VERIFY
+        assertThat(testee.getDepth()).contains(entry("v0", 0), entry("v" + (max - 1), max - 1));
+        assertThat(testee.getResolved()).contains(entry("v" + (max - 1), "x"));
+
+    }
+
+    @Test
+    public void testParallel() {
+
+        // PREPARE
+        final Random random = new Random(4711);
+        final Map<String, String> vars = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            if (i % 50 == 0) {
+                vars.put("v" + i, "value" + i + "\\t");
+            } else {
+                vars.put("v" + i, i + "${v" + random.nextInt(i) + "}${v" + (random.nextInt(1 + i / 50) * 50) + "}${unknown}");
+            }
+        }
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+
+            // TEST
+            final VariableResolver testee = new VariableResolver(vars, pool);
+
+            // VERIFY
+            final VariableResolver expected = new VariableResolver(vars);
+            assertThat(testee.getDepth()).isEqualTo(expected.getDepth());
+            assertThat(testee.getResolved()).isEqualTo(expected.getResolved());
+            assertThat(testee.getUnresolved()).isEqualTo(expected.getUnresolved());
+
+        } finally {
+            pool.shutdown();
+        }
+
+    }
+
     @Test
     public void testReferences() {
 
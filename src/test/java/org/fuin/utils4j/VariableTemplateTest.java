@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test for {@link VariableTemplate}.
+ */
+public class VariableTemplateTest {
+
+    // CHECKSTYLE:OFF
+
+    private static final Map<String, String> vars = new HashMap<>();
+
+    @BeforeAll
+    public static void beforeClass() {
+        vars.put("one", "1");
+        vars.put("two", "2");
+        vars.put("3", "three");
+        vars.put("", "empty");
+    }
+
+    @Test
+    public void testCompileNull() {
+        assertThatThrownBy(() -> VariableTemplate.compile(null)).isInstanceOf(IllegalNullArgumentException.class);
+    }
+
+    @Test
+    public void testSameResultAsReplaceVars() {
+        final String[] inputs = new String[] { "", "one two three", "${one}", " ${one}", "${one} ", " ${one} ", " ${one} ${two} ${3} ",
+                "${one}${two}${3}", "${xyz}", "${one}${xyz}", "${xyz}${two}", "${one}${xyz}${two}", "${one}${two", "${", "$", "}", "${}",
+                "a${one${two}b", "$${one}}", "${one}${" };
+        for (final String input : inputs) {
+            final VariableTemplate testee = VariableTemplate.compile(input);
+            assertThat(testee.render(vars)).isEqualTo(Utils4J.replaceVars(input, vars));
+            assertThat(testee.render(new HashMap<>())).isEqualTo(input);
+            assertThat(testee.render((Map<String, String>) null)).isEqualTo(input);
+        }
+    }
+
+    @Test
+    public void testRenderStringBuilder() {
+
+        // PREPARE
+        final VariableTemplate testee = VariableTemplate.compile("a=${one}, b=${xyz}");
+        final StringBuilder sb = new StringBuilder("[");
+
+        // TEST
+        testee.render(sb, vars).append(']');
+
+        // VERIFY
+        assertThat(sb.toString()).isEqualTo("[a=1, b=${xyz}]");
+
+    }
+
+    @Test
+    public void testRenderAppendable() throws IOException {
+
+        // PREPARE
+        final VariableTemplate testee = VariableTemplate.compile("${one}-${two}-${3}");
+        final StringWriter writer = new StringWriter();
+
+        // TEST
+        testee.render(writer, vars);
+
+        // VERIFY
+        assertThat(writer.toString()).isEqualTo("1-2-three");
+
+    }
+
+    @Test
+    public void testRenderDifferentMaps() {
+
+        // PREPARE
+        final VariableTemplate testee = VariableTemplate.compile("Hello ${name}!");
+        final Map<String, String> a = new HashMap<>();
+        a.put("name", "Peter");
+        final Map<String, String> b = new HashMap<>();
+        b.put("name", "Mary");
+
+        // TEST & VERIFY
+        assertThat(testee.render(a)).isEqualTo("Hello Peter!");
+        assertThat(testee.render(b)).isEqualTo("Hello Mary!");
+
+    }
+
+    @Test
+    public void testHasVariables() {
+        assertThat(VariableTemplate.compile("abc").hasVariables()).isFalse();
+        assertThat(VariableTemplate.compile("a${b").hasVariables()).isFalse();
+        assertThat(VariableTemplate.compile("a${b}").hasVariables()).isTrue();
+    }
+
+    @Test
+    public void testGetSource() {
+        final VariableTemplate testee = VariableTemplate.compile("a${b}c");
+        assertThat(testee.getSource()).isEqualTo("a${b}c");
+        assertThat(testee.toString()).isEqualTo("a${b}c");
+    }
+
+    // CHECKSTYLE:ON
+
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j.benchmarks;
+
+import org.fuin.utils4j.MappedPropertiesFile;
+import org.fuin.utils4j.PropertiesFile;
+import org.fuin.utils4j.PropertiesSnapshot;
+import org.fuin.utils4j.Utils4J;
+
+import java.io.File;
+
+/**
+ * Measures load, put and save of a {@link PropertiesFile} with a growing number of properties. With linear operations the time per key
+ * should stay roughly the same for all sizes.
+ */
+// CHECKSTYLE:OFF
+public class PropertiesFileBenchmark {
+
+    private static final int[] SIZES = new int[] { 10000, 50000, 100000 };
+
+    private static final int RUNS = 3;
+
+    /**
+     * Executes the benchmark.
+     *
+     * @param args
+     *            Not used.
+     *
+     * @throws Exception
+     *             Error executing the benchmark.
+     */
+    public static void main(String[] args) throws Exception {
+
+        final File file = new File(Utils4J.getTempDir(), "PropertiesFileBenchmark.properties");
+        final File snapshotFile = new File(Utils4J.getTempDir(), "PropertiesFileBenchmark.snapshot");
+        try {
+            for (int run = 0; run < RUNS; run++) {
+                for (final int size : SIZES) {
+                    file.delete();
+
+                    // Create initial file
+                    long start = System.nanoTime();
+                    final PropertiesFile propFile = new PropertiesFile(file);
+                    for (int i = 0; i < size; i++) {
+                        propFile.put("key" + i, "value" + i);
+                    }
+                    propFile.save(false);
+                    final long createMillis = (System.nanoTime() - start) / 1000000;
+
+                    // Load into new instance
+                    start = System.nanoTime();
+                    final PropertiesFile loaded = new PropertiesFile(file);
+                    loaded.load();
+                    final long loadMillis = (System.nanoTime() - start) / 1000000;
+
+                    // Map and read a single value
+                    start = System.nanoTime();
+                    final MappedPropertiesFile mapped = new MappedPropertiesFile(file);
+                    mapped.get("key" + (size / 2));
+                    final long mapMillis = (System.nanoTime() - start) / 1000000;
+
+                    // Open snapshot and read a single value
+                    PropertiesSnapshot.write(snapshotFile, loaded);
+                    start = System.nanoTime();
+                    final PropertiesSnapshot snapshot = new PropertiesSnapshot(snapshotFile);
+                    snapshot.get("key" + (size / 2));
+                    final long snapshotMillis = (System.nanoTime() - start) / 1000000;
+
+                    // Change every second value and save
+                    start = System.nanoTime();
+                    for (int i = 0; i < size; i += 2) {
+                        loaded.put("key" + i, "changed" + i);
+                    }
+                    loaded.save(false);
+                    final long saveMillis = (System.nanoTime() - start) / 1000000;
+
+                    System.out.println("Run " + (run + 1) + ", " + size + " keys: create=" + createMillis + " ms, load=" + loadMillis
+                            + " ms, mapped get=" + mapMillis + " ms, snapshot get=" + snapshotMillis + " ms, change+save=" + saveMillis
+                            + " ms");
+                }
+            }
+        } finally {
+            file.delete();
+            snapshotFile.delete();
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
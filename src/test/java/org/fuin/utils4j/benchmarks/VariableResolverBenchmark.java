@@ -0,0 +1,176 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved.
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.utils4j.benchmarks;
+
+import org.fuin.utils4j.Utils4J;
+import org.fuin.utils4j.VariableResolver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the {@link VariableResolver} with the previous implementation that iterated the whole map once per depth level and with the
+ * parallel resolution.
+ */
+// CHECKSTYLE:OFF
+public class VariableResolverBenchmark {
+
+    private static final int SIZE = 50000;
+
+    private static final int RUNS = 5;
+
+    /**
+     * Executes the benchmark.
+     *
+     * @param args
+     *            Not used.
+     */
+    public static void main(String[] args) {
+
+        final Map<String, String> vars = createVars(SIZE);
+
+        // Both implementations must return the same result
+        final VariableResolver current = new VariableResolver(vars);
+        final LegacyVariableResolver legacy = new LegacyVariableResolver(vars);
+        if (!current.getDepth().equals(legacy.depth) || !current.getResolved().equals(legacy.resolved)) {
+            throw new IllegalStateException("Different results");
+        }
+
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            new LegacyVariableResolver(vars);
+            final long legacyMillis = (System.nanoTime() - start) / 1000000;
+
+            start = System.nanoTime();
+            new VariableResolver(vars);
+            final long currentMillis = (System.nanoTime() - start) / 1000000;
+
+            start = System.nanoTime();
+            new VariableResolver(vars, ForkJoinPool.commonPool());
+            final long parallelMillis = (System.nanoTime() - start) / 1000000;
+
+            System.out.println("Run " + (i + 1) + ": legacy=" + legacyMillis + " ms, current=" + currentMillis + " ms, parallel="
+                    + parallelMillis + " ms");
+        }
+
+    }
+
+    /**
+     * Creates variables where each one references a random variable created shortly before.
+     *
+     * @param size
+     *            Number of variables.
+     *
+     * @return Variables.
+     */
+    private static Map<String, String> createVars(final int size) {
+        final Random random = new Random(4711);
+        final Map<String, String> vars = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            if (i % 100 == 0) {
+                vars.put("var" + i, "value" + i);
+            } else {
+                vars.put("var" + i, "${var" + (i - 1 - random.nextInt(Math.min(i, 100))) + "}");
+            }
+        }
+        return vars;
+    }
+
+    /**
+     * Copy of the previous implementation.
+     */
+    private static final class LegacyVariableResolver {
+
+        private final Map<String, String> unresolved;
+
+        private final Map<String, Integer> depth;
+
+        private final Map<String, String> resolved;
+
+        public LegacyVariableResolver(final Map<String, String> unresolved) {
+            this.unresolved = new HashMap<>(unresolved);
+            depth = new HashMap<>();
+            resolved = new HashMap<>();
+            resolve();
+        }
+
+        private void resolve() {
+            int max = 0;
+            Iterator<String> it = unresolved.keySet().iterator();
+            while (it.hasNext()) {
+                final String name = it.next();
+                final String value = unresolved.get(name);
+                final int d = resolve(name, value, new ArrayList<String>());
+                if (d > max) {
+                    max = d;
+                }
+            }
+
+            for (int d = 0; d <= max; d++) {
+                it = unresolved.keySet().iterator();
+                while (it.hasNext()) {
+                    final String name = it.next();
+                    final String value = unresolved.get(name);
+                    if (depth.get(name).intValue() == d) {
+                        resolved.put(name, Utils4J.replaceCrLfTab(Utils4J.replaceVars(value, resolved)));
+                    }
+                }
+            }
+
+        }
+
+        private Integer resolve(final String name, final String value, final List<String> path) {
+
+            if (path.contains(name)) {
+                throw new IllegalStateException("Cycle: " + path + " > " + name);
+            }
+
+            Integer d = depth.get(name);
+            if (d == null) {
+                final Set<String> refs = VariableResolver.references(value);
+                if (refs.isEmpty()) {
+                    d = 0;
+                } else {
+                    final Iterator<String> it = refs.iterator();
+                    while (it.hasNext()) {
+                        final String refName = it.next();
+                        final String refValue = unresolved.get(refName);
+                        d = 1 + resolve(refName, refValue, add(path, name));
+                    }
+                }
+                depth.put(name, d);
+            }
+            return d;
+        }
+
+        private List<String> add(final List<String> list, final String name) {
+            final List<String> newList = new ArrayList<>(list);
+            newList.add(name);
+            return newList;
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON